@@ -4,6 +4,7 @@ import net.runelite.client.config.Config;
 import net.runelite.client.config.ConfigGroup;
 import net.runelite.client.config.ConfigItem;
 import net.runelite.client.config.ConfigSection;
+import net.runelite.client.config.Range;
 
 @ConfigGroup("revalclan")
 public interface RevalClanConfig extends Config {
@@ -222,4 +223,60 @@ public interface RevalClanConfig extends Config {
 	default boolean showAnnouncements() {
 		return true;
 	}
+
+	// ── Advanced ───────────────────────────────────────────────────────
+	@ConfigSection(
+		name = "Advanced",
+		description = "Tuning for how events are delivered to Reval. The defaults suit almost everyone.",
+		position = 2,
+		closedByDefault = true
+	)
+	String advancedSection = "advancedSection";
+
+	@Range(min = 1, max = 50)
+	@ConfigItem(
+		keyName = "webhookBatchSize",
+		name = "Max events per request",
+		description = "Events raised close together are sent in one request, up to this many, once the server reports it accepts batches. 1 disables batching.",
+		section = advancedSection,
+		position = 0
+	)
+	default int webhookBatchSize() {
+		return 20;
+	}
+
+	@Range(min = 0, max = 10)
+	@ConfigItem(
+		keyName = "webhookBatchTicks",
+		name = "Max batching delay (ticks)",
+		description = "How many game ticks an event may wait for others to share its request. 0 disables batching.",
+		section = advancedSection,
+		position = 1
+	)
+	default int webhookBatchTicks() {
+		return 2;
+	}
+
+	@ConfigItem(
+		keyName = "webhookDictionaryCompression",
+		name = "Dictionary compression",
+		description = "Compress events with a shared dictionary of common keys when the Reval server supports it. Shrinks small events considerably.",
+		section = advancedSection,
+		position = 2
+	)
+	default boolean webhookDictionaryCompression() {
+		return true;
+	}
+
+	@Range(min = 50, max = 5000)
+	@ConfigItem(
+		keyName = "webhookQueueCapacity",
+		name = "Max queued events",
+		description = "How many events may wait to be sent. During bursts beyond this, chat, emote and music events are merged or dropped first.",
+		section = advancedSection,
+		position = 3
+	)
+	default int webhookQueueCapacity() {
+		return 500;
+	}
 }
@@ -1,21 +1,41 @@
 package com.revalclan;
 
 import com.revalclan.api.RevalApiService;
+import com.revalclan.chat.ChatRouter;
+import com.revalclan.chat.GameMessageParser;
 import com.revalclan.collectionlog.CollectionLogManager;
 import com.revalclan.collectionlog.CollectionLogSyncButton;
 import com.revalclan.notifiers.*;
 import com.revalclan.pbs.ClogPersonalBestCapture;
 import com.revalclan.ui.RevalPanel;
 import com.revalclan.util.AnnouncementService;
-import com.revalclan.util.ClanValidator;
+import com.revalclan.util.ClanMembershipChanged;
+import com.revalclan.util.ClanMembershipTracker;
+import com.revalclan.util.ContainerSnapshotTracker;
 import com.revalclan.util.EventFilterManager;
+import com.revalclan.util.ItemInfoCache;
+import com.revalclan.util.TextNormalizer;
+import com.revalclan.util.TickScheduler;
 import com.revalclan.util.UIAssetLoader;
+import com.revalclan.util.VarDispatcher;
+import com.revalclan.util.VarSnapshot;
+import com.revalclan.util.WebhookService;
+import com.revalclan.webhook.FileSinkTransport;
+import com.revalclan.webhook.HttpWebhookTransport;
+import com.revalclan.webhook.InMemoryTransport;
+import com.revalclan.webhook.WebhookOutbox;
+import com.revalclan.webhook.WebhookTransport;
+import com.google.gson.Gson;
 import com.google.inject.Provides;
 
 import java.awt.image.BufferedImage;
-import java.util.regex.Pattern;
+import java.io.File;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
+import javax.inject.Singleton;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.ChatMessageType;
 import net.runelite.api.Client;
@@ -25,13 +45,18 @@ import net.runelite.api.events.GameStateChanged;
 import net.runelite.api.events.GameTick;
 import net.runelite.api.events.HitsplatApplied;
 import net.runelite.api.events.InteractingChanged;
+import net.runelite.api.events.ItemContainerChanged;
 import net.runelite.api.events.MenuOptionClicked;
 import net.runelite.api.events.ActorDeath;
 import net.runelite.api.events.ChatMessage;
+import net.runelite.api.events.ClanChannelChanged;
+import net.runelite.api.events.ClanMemberJoined;
+import net.runelite.api.events.ClanMemberLeft;
 import net.runelite.api.events.StatChanged;
 import net.runelite.api.events.VarbitChanged;
 import net.runelite.api.events.WidgetLoaded;
 import net.runelite.api.events.ScriptPreFired;
+import net.runelite.client.RuneLite;
 import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.events.ConfigChanged;
@@ -43,12 +68,16 @@ import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
 import net.runelite.client.ui.ClientToolbar;
 import net.runelite.client.ui.NavigationButton;
+import okhttp3.OkHttpClient;
 
 @Slf4j
 @PluginDescriptor(
 	name = "Reval Clan"
 )
 public class RevalClanPlugin extends Plugin {
+	/** How long shutdown waits for work it hands to the client thread */
+	private static final long CLIENT_THREAD_TIMEOUT_MS = 2000;
+
 	@Inject private Client client;
 
 	@Inject	private CollectionLogManager collectionLogManager;
@@ -93,12 +122,22 @@ public class RevalClanPlugin extends Plugin {
 
 	@Inject	private LogoutNotifier logoutNotifier;
 
+	@Inject	private EnabledNotifiers enabledNotifiers;
+
 	@Inject	private EventBus eventBus;
 
+	@Inject	private GameMessageParser gameMessageParser;
+
 	@Inject	private ClientThread clientThread;
 
 	@Inject	private ItemManager itemManager;
 
+	@Inject	private ItemInfoCache itemInfoCache;
+
+	@Inject	private TickScheduler tickScheduler;
+	@Inject	private VarDispatcher varDispatcher;
+	@Inject	private VarSnapshot varSnapshot;
+
 	@Inject	private SpriteManager spriteManager;
 
 	@Inject	private EventFilterManager eventFilterManager;
@@ -109,26 +148,26 @@ public class RevalClanPlugin extends Plugin {
 
 	@Inject	private RevalApiService revalApiService;
 
+	@Inject	private WebhookService webhookService;
+
+	@Inject	private ContainerSnapshotTracker containerSnapshots;
+
+	@Inject	private ClanMembershipTracker clanMembership;
 
 	@Inject	private UIAssetLoader uiAssetLoader;
 
 	@Inject	private RevalClanConfig config;
 
 	private RevalPanel revalPanel;
+	private volatile ChatRouter gameMessageRouter;
+	private Set<WorldType> lastWorldType = null;
 	private NavigationButton navButton;
 
 	private boolean wasLoggedIn = false;
 	private boolean pendingLoginNotification = false;
 
+	/** Passed clan validation since logging in; sends check the live verdict too */
 	private volatile boolean inRequiredClan = false;
-	private int clanValidationAttempt = -1;
-
-	private static final int FAST_VALIDATION_TICKS = 25;
-	private static final int SLOW_VALIDATION_INTERVAL = 5;
-	private static final int MAX_CLAN_VALIDATION_TICKS = 1000;
-
-	private static final Pattern COL_OPEN = Pattern.compile("<col=[0-9a-fA-F]+>");
-	private static final Pattern COL_CLOSE = Pattern.compile("</col>");
 
 	@Override
 	protected void startUp() throws Exception {
@@ -136,7 +175,6 @@ public class RevalClanPlugin extends Plugin {
 		wasLoggedIn = false;
 		pendingLoginNotification = false;
 		inRequiredClan = false;
-		clanValidationAttempt = -1;
 
 		clientThread.invoke(() -> {
 			if (client.getIndexConfig() == null || client.getGameState().ordinal() < GameState.LOGIN_SCREEN.ordinal()) {
@@ -147,15 +185,39 @@ public class RevalClanPlugin extends Plugin {
 
 			if (client.getGameState() == GameState.LOGGED_IN) {
 				wasLoggedIn = true;
-				clanValidationAttempt = 0;
+				diaryNotifier.scheduleInitialize();
+				clanMembership.update();
+				checkClanValidated();
 			}
 
 			return true;
 		});
 
+		webhookService.startUp();
 		syncButton.startUp();
-		
-		eventBus.register(lootNotifier);
+
+		// Event bus notifiers are registered by EnabledNotifiers while they're enabled
+		enabledNotifiers.add(lootNotifier, true);
+		enabledNotifiers.add(petNotifier, true);
+		enabledNotifiers.add(killCountNotifier, true);
+		enabledNotifiers.add(clueNotifier, true);
+		enabledNotifiers.add(collectionNotifier, true);
+		enabledNotifiers.add(questNotifier, false);
+		enabledNotifiers.add(levelNotifier, false);
+		enabledNotifiers.add(diaryNotifier, false);
+		enabledNotifiers.add(combatAchievementNotifier, false);
+		enabledNotifiers.add(deathNotifier, false);
+		enabledNotifiers.add(detailedKillNotifier, false);
+		enabledNotifiers.add(emoteNotifier, false);
+		enabledNotifiers.add(chatNotifier, false);
+		enabledNotifiers.add(musicNotifier, false);
+		enabledNotifiers.add(leaguesNotifier, false);
+		enabledNotifiers.add(leaguesSyncNotifier, false);
+		// Computing whether a notifier is enabled reads the world type
+		clientThread.invokeLater(this::refreshEnabledNotifiers);
+
+		diaryNotifier.watchVars(varDispatcher);
+
 		eventBus.register(clogPersonalBestCapture);
 
 		// Initialize and add the side panel
@@ -182,22 +244,38 @@ public class RevalClanPlugin extends Plugin {
 	protected void shutDown() throws Exception {
 		log.info("Reval Clan plugin stopped!");
 		inRequiredClan = false;
-		clanValidationAttempt = -1;
 		wasLoggedIn = false;
 
+		// Buffered loot goes to the outbox before it is flushed to disk. The flush reads
+		// the client and cancels tick timers, so it runs on the client thread.
+		invokeAndWait(lootNotifier::flushPendingLoot);
+		webhookService.shutDown();
+		log.debug("Item info cache: {}", itemInfoCache.describeStats());
+		clanMembership.reset();
+
 		collectionLogManager.clearObtainedItems();
 		syncButton.shutDown();
 		
-		eventBus.unregister(lootNotifier);
+		enabledNotifiers.clear();
 		eventBus.unregister(clogPersonalBestCapture);
+		lastWorldType = null;
 
-		announcementService.reset();
-		levelNotifier.reset();
-		clueNotifier.reset();
-		killCountNotifier.reset();
-		detailedKillNotifier.reset();
-		leaguesNotifier.reset();
-		leaguesSyncNotifier.reset();
+		// The resets cancel tick timers, which, like the var snapshot, belong to the client
+		// thread; clearing them here could race a tick in progress
+		invokeAndWait(() -> {
+			announcementService.reset();
+			levelNotifier.reset();
+			clueNotifier.reset();
+			killCountNotifier.reset();
+			detailedKillNotifier.reset();
+			leaguesNotifier.reset();
+			leaguesSyncNotifier.reset();
+			petNotifier.reset();
+			diaryNotifier.reset();
+			varSnapshot.clear();
+			varDispatcher.clear();
+			tickScheduler.clear();
+		});
 
 		// Remove the side panel
 		if (navButton != null) {
@@ -205,8 +283,39 @@ public class RevalClanPlugin extends Plugin {
 		}
 	}
 
+	/**
+	 * Runs a task on the client thread and waits for it, as RuneLite calls shutDown() on
+	 * the Swing thread. Stops waiting after a while, leaving the task queued, so a
+	 * stalled client thread can't hang the shutdown.
+	 */
+	private void invokeAndWait(Runnable task) {
+		CountDownLatch done = new CountDownLatch(1);
+		clientThread.invoke(() -> {
+			try {
+				task.run();
+			} finally {
+				done.countDown();
+			}
+		});
+
+		try {
+			if (!done.await(CLIENT_THREAD_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+				log.warn("Timed out waiting for the client thread during shutdown");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
 	@Subscribe
 	public void onGameStateChanged(GameStateChanged gameStateChanged) {
+		varSnapshot.invalidateAll();
+		if (gameStateChanged.getGameState() == GameState.LOGGED_IN && !client.getWorldType().equals(lastWorldType)) {
+			// Leagues notifiers depend on the world type
+			lastWorldType = client.getWorldType();
+			refreshEnabledNotifiers();
+		}
+
 		diaryNotifier.onGameStateChanged(gameStateChanged);
 
 		if (gameStateChanged.getGameState() == GameState.LOGGED_IN) {
@@ -218,32 +327,70 @@ public class RevalClanPlugin extends Plugin {
 
 				pendingLoginNotification = true;
 
-				clanValidationAttempt = 0;
+				clanMembership.update();
+				checkClanValidated();
+			} else if (inRequiredClan) {
+				leaguesNotifier.onWorldLoaded();
 			}
 		} else if (gameStateChanged.getGameState() == GameState.LOGIN_SCREEN) {
 			boolean wasInClan = inRequiredClan;
 			inRequiredClan = false;
-			clanValidationAttempt = -1;
 			pendingLoginNotification = false;
 			announcementService.reset();
 			leaguesNotifier.reset();
 			leaguesSyncNotifier.reset();
+			containerSnapshots.reset();
 
 			if (wasLoggedIn) {
 				if (wasInClan) {
 					logoutNotifier.onLogout();
 				}
+				// No more ticks to close the batching window
+				webhookService.flush();
 				wasLoggedIn = false;
 
 				if (revalPanel != null) {
 					revalPanel.onLoggedOut();
 				}
 			}
+
+			// After the logout event, which still needs the verdict to be sent
+			clanMembership.reset();
 		}
 	}
 
+	@Subscribe
+	public void onClanChannelChanged(ClanChannelChanged event) {
+		clanMembership.onClanChannelChanged(event);
+	}
+
+	@Subscribe
+	public void onClanMemberJoined(ClanMemberJoined event) {
+		clanMembership.onClanMemberJoined(event);
+	}
+
+	@Subscribe
+	public void onClanMemberLeft(ClanMemberLeft event) {
+		clanMembership.onClanMemberLeft(event);
+	}
+
+	@Subscribe
+	public void onClanMembershipChanged(ClanMembershipChanged event) {
+		checkClanValidated();
+	}
+
+	/**
+	 * Runs the post-login setup the first time the player passes clan validation after logging in
+	 */
+	private void checkClanValidated() {
+		if (inRequiredClan || !wasLoggedIn || !clanMembership.isMember()) return;
+
+		inRequiredClan = true;
+		onClanValidated();
+	}
+
 	private void onClanValidated() {
-		eventFilterManager.fetchFiltersAsync();
+		eventFilterManager.fetchFiltersAsync(() -> clientThread.invokeLater(this::refreshEnabledNotifiers));
 
 		// Fetch leagues config if on a seasonal world
 		if (client.getWorldType().contains(WorldType.SEASONAL)) {
@@ -261,35 +408,50 @@ public class RevalClanPlugin extends Plugin {
 		}
 	}
 
-	@Subscribe
-	public void onGameTick(GameTick gameTick) {
-		if (clanValidationAttempt >= 0) {
-			if (clanValidationAttempt > MAX_CLAN_VALIDATION_TICKS) {
-				clanValidationAttempt = -1;
-			} else {
-				boolean shouldCheck = clanValidationAttempt < FAST_VALIDATION_TICKS
-					|| clanValidationAttempt % SLOW_VALIDATION_INTERVAL == 0;
-
-				if (shouldCheck && ClanValidator.validateClan(client)) {
-					inRequiredClan = true;
-					clanValidationAttempt = -1;
-					onClanValidated();
-				} else {
-					clanValidationAttempt++;
-				}
+	/**
+	 * Recomputes which notifiers are enabled, and routes game messages only to those
+	 */
+	private void refreshEnabledNotifiers() {
+		if (!enabledNotifiers.refresh() && gameMessageRouter != null) return;
+
+		// The diary baseline is read while enabled; a stale one would report old completions
+		if (diaryNotifier.isEnabled()) {
+			if (client.getGameState() == GameState.LOGGED_IN) {
+				diaryNotifier.scheduleInitialize();
 			}
+		} else {
+			diaryNotifier.reset();
+		}
+
+		ChatRouter.Builder router = ChatRouter.builder();
+		// Collection log, pet, kill count, time and clue messages are parsed once and
+		// reach their notifiers as typed events
+		if (lootNotifier.isEnabled() || petNotifier.isEnabled() || killCountNotifier.isEnabled()
+			|| clueNotifier.isEnabled() || collectionNotifier.isEnabled()) {
+			router.route(GameMessageParser.CHAT_ANCHORS, gameMessageParser::parse);
+		}
+		if (lootNotifier.isEnabled()) {
+			router.route(LootNotifier.CHAT_ANCHORS, lootNotifier::onGameMessage);
+		}
+		if (combatAchievementNotifier.isEnabled()) {
+			router.route(CombatAchievementNotifier.CHAT_ANCHORS, combatAchievementNotifier::onChatMessage);
+		}
+		if (leaguesNotifier.isEnabled()) {
+			router.route(LeaguesNotifier.CHAT_ANCHORS, leaguesNotifier::onChatMessage);
 		}
+		gameMessageRouter = router.build();
+	}
+
+	@Subscribe
+	public void onGameTick(GameTick gameTick) {
+		varSnapshot.invalidateAll();
+		webhookService.onGameTick();
+		tickScheduler.tick();
 
 		if (!inRequiredClan) return;
 
 		announcementService.onGameTick();
-		lootNotifier.onGameTick();
 		detailedKillNotifier.onGameTick(gameTick);
-		killCountNotifier.onTick();
-		diaryNotifier.onGameTick();
-		petNotifier.onGameTick();
-		leaguesNotifier.onGameTick();
-		leaguesSyncNotifier.onGameTick();
 	}
 
 	/**
@@ -307,7 +469,7 @@ public class RevalClanPlugin extends Plugin {
 
 				int itemId = (int) args[1];
 				int itemCount = (int) args[2];
-				String itemName = itemManager.getItemComposition(itemId).getName();
+				String itemName = itemInfoCache.getName(itemId);
 				collectionLogManager.onCollectionLogItemObtained(itemId, itemCount, itemName);
 			} catch (Exception e) {
 				log.error("Error capturing collection log item", e);
@@ -320,7 +482,7 @@ public class RevalClanPlugin extends Plugin {
 		if (!inRequiredClan) return;
 
 		String message = event.getMessage();
-		String cleanMessage = COL_CLOSE.matcher(COL_OPEN.matcher(message).replaceAll("")).replaceAll("");
+		String cleanMessage = TextNormalizer.normalize(message, TextNormalizer.STRIP_COLOR_TAGS);
 
 		ChatMessageType type = event.getType();
 
@@ -329,13 +491,11 @@ public class RevalClanPlugin extends Plugin {
 		if (type == ChatMessageType.GAMEMESSAGE ||
 			type == ChatMessageType.SPAM ||
 			type == ChatMessageType.ENGINE) {
-			petNotifier.onChatMessage(cleanMessage);
-			lootNotifier.onGameMessage(cleanMessage);
-			killCountNotifier.onChatMessage(cleanMessage);
-			clueNotifier.onChatMessage(cleanMessage);
-			combatAchievementNotifier.onChatMessage(cleanMessage);
-			collectionNotifier.onChatMessage(cleanMessage);
-			leaguesNotifier.onChatMessage(cleanMessage);
+			// Built on the client thread shortly after startup
+			ChatRouter router = gameMessageRouter;
+			if (router != null) {
+				router.route(cleanMessage);
+			}
 		} else if (type == ChatMessageType.CLAN_MESSAGE ||
 			type == ChatMessageType.CLAN_CHAT ||
 			type == ChatMessageType.CLAN_GUEST_CHAT) {
@@ -364,6 +524,12 @@ public class RevalClanPlugin extends Plugin {
 		detailedKillNotifier.onActorDeath(event);
 	}
 
+	@Subscribe
+	public void onItemContainerChanged(ItemContainerChanged event) {
+		if (!inRequiredClan) return;
+		containerSnapshots.onItemContainerChanged(event);
+	}
+
 	@Subscribe
 	public void onHitsplatApplied(HitsplatApplied event) {
 		if (!inRequiredClan) return;
@@ -385,23 +551,50 @@ public class RevalClanPlugin extends Plugin {
 
 	@Subscribe
 	public void onVarbitChanged(VarbitChanged event) {
-		if (!inRequiredClan) return;
-		diaryNotifier.onVarbitChanged(event);
+		varDispatcher.onVarbitChanged(event);
 	}
 
 	@Subscribe
 	public void onConfigChanged(ConfigChanged event) {
 		if (!"revalclan".equals(event.getGroup())) return;
 
+		clientThread.invokeLater(this::refreshEnabledNotifiers);
+
 		if ("hideCompletedItems".equals(event.getKey()) && revalPanel != null) {
 			revalPanel.getProfilePanel().rebuild();
 		}
+
+		if ("webhookQueueCapacity".equals(event.getKey())) {
+			webhookService.onConfigChanged();
+		}
 	}
 
 	@Provides
 	RevalClanConfig provideConfig(ConfigManager configManager) {
 		return configManager.getConfig(RevalClanConfig.class);
 	}
+
+	@Provides
+	@Singleton
+	WebhookOutbox provideWebhookOutbox(Gson gson) {
+		return new WebhookOutbox(gson, new File(RuneLite.RUNELITE_DIR, "reval/outbox"));
+	}
+
+	@Provides
+	@Singleton
+	WebhookTransport provideWebhookTransport(OkHttpClient httpClient, Gson gson) {
+		String transport = System.getProperty("reval.webhook.transport", "http");
+		switch (transport) {
+			case "file":
+				log.info("Webhook events are written to the local file sink");
+				return new FileSinkTransport(gson, new File(RuneLite.RUNELITE_DIR, "reval/sink"));
+			case "memory":
+				log.info("Webhook events are kept in memory");
+				return new InMemoryTransport(gson);
+			default:
+				return new HttpWebhookTransport(httpClient);
+		}
+	}
 }
 
 
@@ -0,0 +1,133 @@
+package com.revalclan.chat;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Finds which of up to 64 groups of literal anchors occur in a text, in one pass and
+ * without allocating. Matching is ASCII case-insensitive; any other character simply
+ * breaks a match in progress, as no anchor contains one.
+ * <p>
+ * The Aho-Corasick automaton is compiled into a full transition table, so each input
+ * character costs one array lookup.
+ */
+public final class AhoCorasickMatcher {
+	private static final int ALPHABET = 128;
+
+	/** transitions[state * ALPHABET + c] is the next state */
+	private final int[] transitions;
+
+	/** Groups with an anchor ending at each state, including through failure links */
+	private final long[] outputs;
+
+	private AhoCorasickMatcher(int[] transitions, long[] outputs) {
+		this.transitions = transitions;
+		this.outputs = outputs;
+	}
+
+	/**
+	 * @param groups anchors per group; group {@code i} sets bit {@code i} of
+	 *               {@link #match(CharSequence)}. Anchors must be non-empty ASCII.
+	 */
+	public static AhoCorasickMatcher compile(List<String[]> groups) {
+		if (groups.size() > Long.SIZE) {
+			throw new IllegalArgumentException("At most " + Long.SIZE + " anchor groups");
+		}
+
+		// Trie of the lowercased anchors
+		List<int[]> trie = new ArrayList<>();
+		List<Long> out = new ArrayList<>();
+		trie.add(newNode());
+		out.add(0L);
+
+		for (int group = 0; group < groups.size(); group++) {
+			for (String anchor : groups.get(group)) {
+				if (anchor.isEmpty()) {
+					throw new IllegalArgumentException("Empty anchor");
+				}
+				int state = 0;
+				for (int i = 0; i < anchor.length(); i++) {
+					int c = lower(anchor.charAt(i));
+					if (c < 0) {
+						throw new IllegalArgumentException("Non-ASCII anchor: " + anchor);
+					}
+					if (trie.get(state)[c] < 0) {
+						trie.get(state)[c] = trie.size();
+						trie.add(newNode());
+						out.add(0L);
+					}
+					state = trie.get(state)[c];
+				}
+				out.set(state, out.get(state) | (1L << group));
+			}
+		}
+
+		// Breadth-first: fill missing transitions from the failure state and
+		// inherit its outputs, turning the trie into a DFA
+		int states = trie.size();
+		int[] transitions = new int[states * ALPHABET];
+		long[] outputs = new long[states];
+		int[] fail = new int[states];
+
+		Deque<Integer> queue = new ArrayDeque<>();
+		for (int c = 0; c < ALPHABET; c++) {
+			int next = trie.get(0)[c];
+			if (next < 0) {
+				transitions[c] = 0;
+			} else {
+				transitions[c] = next;
+				fail[next] = 0;
+				queue.add(next);
+			}
+		}
+		outputs[0] = out.get(0);
+
+		while (!queue.isEmpty()) {
+			int state = queue.poll();
+			outputs[state] = out.get(state) | outputs[fail[state]];
+			for (int c = 0; c < ALPHABET; c++) {
+				int next = trie.get(state)[c];
+				if (next < 0) {
+					transitions[state * ALPHABET + c] = transitions[fail[state] * ALPHABET + c];
+				} else {
+					transitions[state * ALPHABET + c] = next;
+					fail[next] = transitions[fail[state] * ALPHABET + c];
+					queue.add(next);
+				}
+			}
+		}
+
+		return new AhoCorasickMatcher(transitions, outputs);
+	}
+
+	/**
+	 * @return a bit per group with at least one anchor in the text
+	 */
+	public long match(CharSequence text) {
+		long found = 0;
+		int state = 0;
+		for (int i = 0, n = text.length(); i < n; i++) {
+			int c = lower(text.charAt(i));
+			state = c < 0 ? 0 : transitions[state * ALPHABET + c];
+			found |= outputs[state];
+		}
+		return found;
+	}
+
+	private static int[] newNode() {
+		int[] node = new int[ALPHABET];
+		Arrays.fill(node, -1);
+		return node;
+	}
+
+	/**
+	 * @return the lowercased ASCII code of a character, or -1 if it isn't ASCII
+	 */
+	private static int lower(char c) {
+		if (c >= ALPHABET) return -1;
+		return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+	}
+}
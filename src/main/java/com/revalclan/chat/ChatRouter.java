@@ -0,0 +1,61 @@
+package com.revalclan.chat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hands game messages only to the handlers whose literal anchors occur in them. Every
+ * handler registers the fixed phrases its patterns can't match without; one
+ * {@link AhoCorasickMatcher} pass then picks the handlers to run, so a message that
+ * concerns nobody costs a single scan.
+ * <p>
+ * Anchors must be necessary for a match, not merely likely: a handler whose anchors
+ * don't appear is not called at all.
+ */
+public final class ChatRouter {
+	private final AhoCorasickMatcher matcher;
+	private final List<Consumer<String>> handlers;
+
+	private ChatRouter(AhoCorasickMatcher matcher, List<Consumer<String>> handlers) {
+		this.matcher = matcher;
+		this.handlers = handlers;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Calls the matching handlers in registration order
+	 */
+	public void route(String message) {
+		long matched = matcher.match(message);
+		while (matched != 0) {
+			int route = Long.numberOfTrailingZeros(matched);
+			matched &= matched - 1;
+			handlers.get(route).accept(message);
+		}
+	}
+
+	public static final class Builder {
+		private final List<String[]> anchors = new ArrayList<>();
+		private final List<Consumer<String>> handlers = new ArrayList<>();
+
+		private Builder() {}
+
+		/**
+		 * @param anchors phrases, matched case-insensitively, at least one of which occurs
+		 *                in every message the handler acts on
+		 */
+		public Builder route(String[] anchors, Consumer<String> handler) {
+			this.anchors.add(anchors);
+			this.handlers.add(handler);
+			return this;
+		}
+
+		public ChatRouter build() {
+			return new ChatRouter(AhoCorasickMatcher.compile(anchors), List.copyOf(handlers));
+		}
+	}
+}
@@ -0,0 +1,12 @@
+package com.revalclan.chat;
+
+import lombok.Value;
+
+/**
+ * A "You have completed N tier Treasure Trails" message
+ */
+@Value
+public class ClueCompletionMessage {
+	int count;
+	String tier;
+}
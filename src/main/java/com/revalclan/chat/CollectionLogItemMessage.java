@@ -0,0 +1,11 @@
+package com.revalclan.chat;
+
+import lombok.Value;
+
+/**
+ * A "New item added to your collection log" announcement
+ */
+@Value
+public class CollectionLogItemMessage {
+	String itemName;
+}
@@ -0,0 +1,15 @@
+package com.revalclan.chat;
+
+import lombok.Value;
+
+/**
+ * A kill, raid or challenge time, e.g. "Fight duration: 1:23.40 (new personal best)"
+ */
+@Value
+public class DurationMessage {
+	/** The time as written, e.g. "1:23.40" */
+	String time;
+	boolean personalBest;
+	/** Taken from a Theatre of Blood wave message, which also reports the challenge time */
+	boolean theatreOfBloodWave;
+}
@@ -0,0 +1,173 @@
+package com.revalclan.chat;
+
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.eventbus.EventBus;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Recognizes the structured game messages several notifiers care about, once per message,
+ * and posts them on the event bus as typed events: {@link CollectionLogItemMessage},
+ * {@link PetDropMessage}, {@link UntradeableDropMessage}, {@link KillCountMessage},
+ * {@link DurationMessage} and {@link ClueCompletionMessage}.
+ * <p>
+ * Each pattern is only tried when its anchor occurs in the message. Events are posted
+ * synchronously, in the order above, on the client thread.
+ * Portions inspired by Dink plugin (BSD 2-Clause License)
+ */
+@Slf4j
+@Singleton
+public class GameMessageParser {
+	private static final Pattern COLLECTION_LOG_PATTERN = Pattern.compile(
+		"New item added to your collection log: (?<item>.+)",
+		Pattern.CASE_INSENSITIVE
+	);
+
+	private static final Pattern PET_PATTERN = Pattern.compile(
+		"You (?:have a funny feeling like you(?:'re being followed| would have been followed)|feel something weird sneaking into your backpack)\\.?",
+		Pattern.CASE_INSENSITIVE
+	);
+
+	private static final Pattern UNTRADEABLE_PATTERN = Pattern.compile(
+		"Untradeable drop: (?<item>.+)",
+		Pattern.CASE_INSENSITIVE
+	);
+
+	// "Your <boss> kill/chest/completion count is: <count>"
+	private static final Pattern KILL_COUNT_PATTERN = Pattern.compile(
+		"Your (?<key>.+?)\\s+(?<type>kill|chest|completion|harvest|success|opened)\\s?count is:?\\s*(?<value>[\\d,]+)\\b",
+		Pattern.CASE_INSENSITIVE
+	);
+
+	// "Your completed <raid> count is: <count>"
+	private static final Pattern RAID_COUNT_PATTERN = Pattern.compile(
+		"Your (?:completed|subdued) (?<key>.+) count is: (?<value>[\\d,]+)\\b",
+		Pattern.CASE_INSENSITIVE
+	);
+
+	// "Duration: <time>" or "Time: <time> (Personal best: <pb>)"
+	private static final Pattern TIME_PATTERN = Pattern.compile(
+		"(?:Duration|time|Subdued in):?\\s*(?<time>[\\d:]+(?:\\.\\d+)?)\\.?(?:\\s*\\(new personal best\\))?(?:\\s*Personal best:\\s*(?<pbtime>[\\d:]+(?:\\.\\d+)?))?",
+		Pattern.CASE_INSENSITIVE
+	);
+
+	private static final Pattern CLUE_PATTERN = Pattern.compile(
+		"You have completed (?<count>\\d+) (?<tier>\\w+) Treasure Trails?\\.",
+		Pattern.CASE_INSENSITIVE
+	);
+
+	private static final int COLLECTION_LOG = 0;
+	private static final int PET = 1;
+	private static final int UNTRADEABLE = 2;
+	private static final int KILL_COUNT = 3;
+	private static final int DURATION = 4;
+	private static final int CLUE = 5;
+
+	/** Anchor groups, indexed by the constants above */
+	private static final List<String[]> ANCHORS = List.of(
+		new String[]{"new item added to your collection log: "},
+		new String[]{"funny feeling like you", "sneaking into your backpack"},
+		new String[]{"untradeable drop: "},
+		new String[]{"count is"},
+		new String[]{"duration", "time", "subdued in"},
+		new String[]{" treasure trail"}
+	);
+
+	/** Every anchor, for routing messages to {@link #parse} */
+	public static final String[] CHAT_ANCHORS = ANCHORS.stream().flatMap(Arrays::stream).toArray(String[]::new);
+
+	private static final AhoCorasickMatcher MATCHER = AhoCorasickMatcher.compile(ANCHORS);
+
+	@Inject private EventBus eventBus;
+
+	/**
+	 * Parses a game message with its color tags stripped, posting an event for each
+	 * structure recognized
+	 */
+	public void parse(String message) {
+		long found = MATCHER.match(message);
+		if (found == 0) return;
+
+		if (has(found, COLLECTION_LOG)) {
+			Matcher matcher = COLLECTION_LOG_PATTERN.matcher(message);
+			if (matcher.find()) {
+				eventBus.post(new CollectionLogItemMessage(matcher.group("item").trim()));
+			}
+		}
+
+		if (has(found, PET) && PET_PATTERN.matcher(message).find()) {
+			eventBus.post(new PetDropMessage(message));
+		}
+
+		if (has(found, UNTRADEABLE)) {
+			Matcher matcher = UNTRADEABLE_PATTERN.matcher(message);
+			if (matcher.find()) {
+				eventBus.post(new UntradeableDropMessage(matcher.group("item").trim()));
+			}
+		}
+
+		// Preparation lines report a raid phase, not the kill
+		if (message.startsWith("Preparation")) return;
+
+		if (has(found, KILL_COUNT)) {
+			parseKillCount(message);
+		}
+
+		if (has(found, DURATION)) {
+			parseDuration(message);
+		}
+
+		if (has(found, CLUE)) {
+			Matcher matcher = CLUE_PATTERN.matcher(message);
+			if (matcher.find()) {
+				eventBus.post(new ClueCompletionMessage(Integer.parseInt(matcher.group("count")), matcher.group("tier")));
+			}
+		}
+	}
+
+	private void parseKillCount(String message) {
+		Matcher matcher = KILL_COUNT_PATTERN.matcher(message);
+		String type = null;
+		if (matcher.find()) {
+			type = matcher.group("type");
+		} else {
+			matcher = RAID_COUNT_PATTERN.matcher(message);
+			if (!matcher.find()) return;
+		}
+
+		String count = matcher.group("value").replace(",", "");
+		try {
+			eventBus.post(new KillCountMessage(matcher.group("key"), type, Integer.parseInt(count)));
+		} catch (NumberFormatException e) {
+			log.debug("Failed to parse kill count: {}", count);
+		}
+	}
+
+	private void parseDuration(String message) {
+		// TOB special case: skip the wave duration, get the challenge time
+		String msg = message;
+		boolean theatreOfBloodWave = false;
+		if (message.startsWith("Wave")) {
+			int tobIndex = message.indexOf("Theatre of Blood");
+			if (tobIndex > 0) {
+				msg = message.substring(tobIndex);
+				theatreOfBloodWave = true;
+			}
+		}
+
+		Matcher matcher = TIME_PATTERN.matcher(msg);
+		if (matcher.find()) {
+			boolean personalBest = msg.toLowerCase().contains("new personal best");
+			eventBus.post(new DurationMessage(matcher.group("time"), personalBest, theatreOfBloodWave));
+		}
+	}
+
+	private static boolean has(long found, int group) {
+		return (found & (1L << group)) != 0;
+	}
+}
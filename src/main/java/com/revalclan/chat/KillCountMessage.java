@@ -0,0 +1,19 @@
+package com.revalclan.chat;
+
+import lombok.Value;
+
+/**
+ * A "Your X kill count is: N" line, or the raid form "Your completed X count is: N"
+ */
+@Value
+public class KillCountMessage {
+	/** The boss, raid or activity as named in the message */
+	String key;
+	/** kill, chest, completion, harvest, success or opened; null for the raid form */
+	String type;
+	int count;
+
+	public boolean isRaid() {
+		return type == null;
+	}
+}
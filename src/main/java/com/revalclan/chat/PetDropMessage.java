@@ -0,0 +1,11 @@
+package com.revalclan.chat;
+
+import lombok.Value;
+
+/**
+ * The personal "funny feeling" message of a pet drop; the pet's name follows in later messages
+ */
+@Value
+public class PetDropMessage {
+	String message;
+}
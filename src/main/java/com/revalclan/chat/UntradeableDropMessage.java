@@ -0,0 +1,11 @@
+package com.revalclan.chat;
+
+import lombok.Value;
+
+/**
+ * An "Untradeable drop: X" message
+ */
+@Value
+public class UntradeableDropMessage {
+	String itemName;
+}
@@ -6,6 +6,7 @@
  */
 package com.revalclan.collectionlog;
 
+import com.revalclan.util.VarSnapshot;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.gameval.VarPlayerID;
@@ -26,6 +27,7 @@ import java.util.regex.Pattern;
 @Singleton
 public class CollectionLogManager {
 	@Inject private Client client;
+	@Inject private VarSnapshot varSnapshot;
 
 	/**
 	 * Maps in-game category struct IDs to the list of items they contain
@@ -394,7 +396,7 @@ public class CollectionLogManager {
 			data.put("dataSource", "collection_log_opened");
 		} else {
 			try {
-				data.put("obtainedItems", client.getVarpValue(2943));
+				data.put("obtainedItems", varSnapshot.getVarp(2943));
 				data.put("dataSource", "varbit_2943");
 			} catch (Exception e) {
 				data.put("obtainedItems", 0);
@@ -480,7 +482,7 @@ public class CollectionLogManager {
 		KCSource kcSource = categoryKCMap.get(subcategorySlug);
 		if (kcSource != null) {
 			try {
-				int kc = kcSource.isVarbit ? client.getVarbitValue(kcSource.id) : client.getVarpValue(kcSource.id);
+				int kc = readKC(kcSource);
 				subcategoryData.put("kc", kc);
 			} catch (Exception e) {
 				subcategoryData.put("kc", 0);
@@ -490,6 +492,10 @@ public class CollectionLogManager {
 		}
 	}
 
+	private int readKC(KCSource source) {
+		return source.isVarbit ? varSnapshot.getVarbit(source.id) : varSnapshot.getVarp(source.id);
+	}
+
 	/**
 	 * Add additional KCs including derived and summed calculations
 	 */
@@ -503,7 +509,7 @@ public class CollectionLogManager {
 		for (Map.Entry<String, KCSource> entry : additionalKCs.entrySet()) {
 			try {
 				KCSource source = entry.getValue();
-				int value = source.isVarbit ? client.getVarbitValue(source.id) : client.getVarpValue(source.id);
+				int value = readKC(source);
 				kcValues.put(entry.getKey(), value);
 			} catch (Exception e) {
 				kcValues.put(entry.getKey(), 0);
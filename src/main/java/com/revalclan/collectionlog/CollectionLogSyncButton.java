@@ -6,12 +6,12 @@
 package com.revalclan.collectionlog;
 
 import com.revalclan.notifiers.SyncNotifier;
-import com.revalclan.util.ClanValidator;
+import com.revalclan.util.ClanMembershipTracker;
+import com.revalclan.util.TickScheduler;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.ChatMessageType;
 import net.runelite.api.Client;
 import net.runelite.api.MenuAction;
-import net.runelite.api.events.GameTick;
 import net.runelite.api.events.ScriptPreFired;
 import net.runelite.api.gameval.VarbitID;
 import net.runelite.api.widgets.JavaScriptCallback;
@@ -49,9 +49,15 @@ public class CollectionLogSyncButton {
 	@Inject
 	private SyncNotifier syncNotifier;
 
+	@Inject
+	private TickScheduler tickScheduler;
+
+	@Inject
+	private ClanMembershipTracker clanMembership;
+
 	private int baseMenuHeight = -1;
 	private int lastAttemptedSync = -1;
-	private int pendingSyncTick = -1;
+	private TickScheduler.Timer pendingSync = null;
 
 	public void startUp() {
 		eventBus.register(this);
@@ -59,6 +65,10 @@ public class CollectionLogSyncButton {
 
 	public void shutDown() {
 		eventBus.unregister(this);
+		if (pendingSync != null) {
+			pendingSync.cancel();
+			pendingSync = null;
+		}
 	}
 
 	@Subscribe
@@ -88,7 +98,7 @@ public class CollectionLogSyncButton {
 		lastAttemptedSync = client.getTickCount();
 
 		// Validate clan membership
-		if (!ClanValidator.validateClan(client)) {
+		if (!clanMembership.isMember()) {
 			client.addChatMessage(ChatMessageType.GAMEMESSAGE, "", "Reval: You must be in the Reval clan to sync.", "");
 			return;
 		}
@@ -107,15 +117,10 @@ public class CollectionLogSyncButton {
 	}
 
 	private void scheduleSync() {
-		pendingSyncTick = client.getTickCount() + SYNC_DELAY_TICKS;
-	}
-
-	@Subscribe
-	public void onGameTick(GameTick event) {
-		if (pendingSyncTick != -1 && client.getTickCount() >= pendingSyncTick) {
-			pendingSyncTick = -1;
-			performSync();
+		if (pendingSync != null) {
+			pendingSync.cancel();
 		}
+		pendingSync = tickScheduler.schedule(SYNC_DELAY_TICKS, this::performSync);
 	}
 
 	private void performSync() {
@@ -1,5 +1,6 @@
 package com.revalclan.combatachievements;
 
+import com.revalclan.util.VarSnapshot;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.EnumComposition;
@@ -16,6 +17,7 @@ import java.util.*;
 @Singleton
 public class CombatAchievementManager {
 	@Inject private Client client;
+	@Inject private VarSnapshot varSnapshot;
 
 	private static final Map<Integer, String> TIER_ENUMS = new LinkedHashMap<>();
 	static {
@@ -158,7 +160,7 @@ public class CombatAchievementManager {
 		if (varpIndex >= COMPLETION_VARPS.length) return false;
 		
 		try {
-			int varpValue = client.getVarpValue(COMPLETION_VARPS[varpIndex]);
+			int varpValue = varSnapshot.getVarp(COMPLETION_VARPS[varpIndex]);
 			return (varpValue & (1 << bitIndex)) != 0;
 		} catch (Exception e) {
 			return false;
@@ -1,7 +1,7 @@
 package com.revalclan.diaries;
 
+import com.revalclan.util.VarSnapshot;
 import lombok.extern.slf4j.Slf4j;
-import net.runelite.api.Client;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -15,7 +15,7 @@ import java.util.Map;
 @Singleton
 public class AchievementDiaryManager {
 	@Inject
-	private Client client;
+	private VarSnapshot varSnapshot;
 
 	private final Map<String, Map<String, Integer>> diaryVarbits = new HashMap<>();
 
@@ -128,7 +128,7 @@ public class AchievementDiaryManager {
 			for (Map.Entry<String, Integer> tierEntry : regionEntry.getValue().entrySet()) {
 				String tier = tierEntry.getKey();
 				int varbitId = tierEntry.getValue();
-				int value = client.getVarbitValue(varbitId);
+				int value = varSnapshot.getVarbit(varbitId);
 				
 				// Karamja Easy (3578), Medium (3599), Hard (3611) special case
 				// 0 = not started, 1 = started, 2 = completed
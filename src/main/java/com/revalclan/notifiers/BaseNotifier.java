@@ -1,23 +1,25 @@
 package com.revalclan.notifiers;
 
 import com.revalclan.RevalClanConfig;
-import com.revalclan.util.ClanValidator;
+import com.revalclan.util.ClanMembershipTracker;
+import com.revalclan.util.ContainerSnapshotTracker;
 import com.revalclan.util.EventFilterManager;
+import com.revalclan.util.ItemInfoCache;
 import com.revalclan.util.ScreenshotService;
+import com.revalclan.util.TickScheduler;
+import com.revalclan.util.VarSnapshot;
 import com.revalclan.util.WebhookService;
+import com.revalclan.webhook.EventIdGenerator;
+import com.revalclan.webhook.PayloadSnapshot;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
-import net.runelite.api.Item;
-import net.runelite.api.ItemComposition;
-import net.runelite.api.ItemContainer;
 import net.runelite.api.coords.WorldPoint;
 import net.runelite.client.game.ItemManager;
 
 import javax.inject.Inject;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.util.EnumSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Base class for all notification types (loot, death, pets, etc.)
@@ -34,13 +36,38 @@ public abstract class BaseNotifier {
 	
 	@Inject protected ItemManager itemManager;
 
+	@Inject protected ItemInfoCache itemInfoCache;
+
 	@Inject protected ScreenshotService screenshotService;
 
+	@Inject protected TickScheduler tickScheduler;
+
+	@Inject protected VarSnapshot varSnapshot;
+
+	@Inject private EventIdGenerator eventIdGenerator;
+
+	@Inject private ContainerSnapshotTracker containerSnapshots;
+
+	@Inject private EnabledNotifiers enabledNotifiers;
+
+	@Inject private ClanMembershipTracker clanMembership;
+
+	/** Bit of this notifier in {@link EnabledNotifiers}, -1 if it isn't tracked there */
+	int enabledBit = -1;
+
 	/**
 	 * Check if this notifier should be active
 	 * @return true if the notifier is enabled and conditions are met
 	 */
-	public abstract boolean isEnabled();
+	public boolean isEnabled() {
+		return enabledNotifiers.isEnabled(this);
+	}
+
+	/**
+	 * Reads whether the notifier is enabled from the config, the event filters and the
+	 * world; {@link EnabledNotifiers} caches the result until one of them changes
+	 */
+	protected abstract boolean computeEnabled();
 
 	/**
 	 * Get the event type identifier for this notifier
@@ -48,47 +75,62 @@ public abstract class BaseNotifier {
 	 */
 	protected abstract String getEventType();
 
+	/**
+	 * Context blocks to attach to this notifier's events, unless the event filters
+	 * override them for its event type. Inventory and equipment cost an item lookup per
+	 * slot on the client thread, so frequent, low-value events should leave them out.
+	 */
+	protected Set<MetadataBlock> getMetadataProfile() {
+		return EnumSet.allOf(MetadataBlock.class);
+	}
+
 	/**
 	 * Send a notification with the given data (no screenshot).
 	 * 
 	 * @param data The notification data
 	 */
 	protected void sendNotification(Map<String, Object> data) {
-		if (!ClanValidator.validateClan(client)) return;
+		if (!clanMembership.isMember()) return;
 		addEventMetadata(data);
 		webhookService.sendDataAsync(data);
 	}
 
 	/**
-	 * Captures a screenshot of the current game frame, attaches it to the data,
-	 * then sends the notification asynchronously.
+	 * Captures a screenshot of the current game frame and sends it along with the data
+	 * asynchronously, as a binary attachment rather than inside the JSON. The data is
+	 * frozen here, as the screenshot completes on another thread.
 	 * @param data The notification data
 	 */
 	protected void sendNotificationWithScreenshot(Map<String, Object> data) {
-		if (!ClanValidator.validateClan(client)) return;
+		if (!clanMembership.isMember()) return;
 		addEventMetadata(data);
 
+		Map<String, Object> frozen = PayloadSnapshot.freeze(data);
 		screenshotService.captureScreenshot()
-			.thenAccept(base64Screenshot -> {
-				if (base64Screenshot != null) {
-					data.put("screenshot", base64Screenshot);
-				}
-				webhookService.sendDataAsync(data);
-			});
+			.thenAccept(screenshot -> webhookService.sendDataAsync(frozen, screenshot));
 	}
 
 	/**
 	 * Adds standard event metadata (type, timestamp, location, inventory, etc.) to the data map.
+	 * Only the blocks in the event type's metadata profile are gathered.
 	 * Must be called on the game thread where client access is safe.
 	 */
 	private void addEventMetadata(Map<String, Object> data) {
+		// Hashes the notifier's own content, before the volatile metadata below is added
+		data.put("eventId", eventIdGenerator.next(client.getAccountHash(), client.getTickCount(), getEventType(), data));
 		data.put("eventType", getEventType());
 		data.put("eventTimestamp", System.currentTimeMillis());
 		data.put("accountHash", client.getAccountHash());
 		data.put("username", getPlayerName());
-		data.put("world", client.getWorld());
+
+		Set<MetadataBlock> profile = filterManager.getFilters().getMetadataProfiles().get(getEventType());
+		if (profile == null) profile = getMetadataProfile();
+
+		if (profile.contains(MetadataBlock.WORLD)) {
+			data.put("world", client.getWorld());
+		}
 		
-		if (client.getLocalPlayer() != null) {
+		if (profile.contains(MetadataBlock.LOCATION) && client.getLocalPlayer() != null) {
 			WorldPoint wp = client.getLocalPlayer().getWorldLocation();
 			data.put("worldX", wp.getX());
 			data.put("worldY", wp.getY());
@@ -96,8 +138,24 @@ public abstract class BaseNotifier {
 			data.put("regionId", wp.getRegionID());
 		}
 		
-		data.put("inventory", getInventoryData());
-		data.put("equipment", getEquippedItems());
+		if (profile.contains(MetadataBlock.INVENTORY)) {
+			attachSnapshot(data, "inventory", ContainerSnapshotTracker.INVENTORY);
+		}
+		if (profile.contains(MetadataBlock.EQUIPMENT)) {
+			attachSnapshot(data, "equipment", ContainerSnapshotTracker.EQUIPMENT);
+		}
+	}
+
+	/**
+	 * Adds a container's snapshot hash under {@code <key>Hash}, and its items under
+	 * {@code <key>} unless the server has acknowledged that snapshot before
+	 */
+	private void attachSnapshot(Map<String, Object> data, String key, int containerId) {
+		ContainerSnapshotTracker.Snapshot snapshot = containerSnapshots.get(containerId);
+		data.put(key + "Hash", snapshot.getHash());
+		if (!containerSnapshots.isSent(snapshot.getHash())) {
+			data.put(key, snapshot.getItems());
+		}
 	}
 
 	/**
@@ -107,60 +165,4 @@ public abstract class BaseNotifier {
 		if (client.getLocalPlayer() != null) return client.getLocalPlayer().getName();
 		return "Unknown";
 	}
-	
-	/**
-	 * Get player's equipped items using the equipment ItemContainer
-	 */
-	protected List<Map<String, Object>> getEquippedItems() {
-		return getItemContainerData(94); // Equipment container
-	}
-	
-	/**
-	 * Get player's inventory data
-	 */
-	protected List<Map<String, Object>> getInventoryData() {
-		return getItemContainerData(93); // Inventory container
-	}
-	
-	/**
-	 * Get items from a specific ItemContainer
-	 * @param containerId The container ID (93=inventory, 94=equipment)
-	 */
-	private List<Map<String, Object>> getItemContainerData(int containerId) {
-		List<Map<String, Object>> items = new ArrayList<>();
-		
-		ItemContainer container = client.getItemContainer(containerId);
-		if (container == null) return items;
-		
-		Item[] containerItems = container.getItems();
-		if (containerItems == null) return items;
-		
-		for (int i = 0; i < containerItems.length; i++) {
-			Item item = containerItems[i];
-			
-			// Skip empty slots
-			if (item.getId() <= 0 || item.getQuantity() <= 0) continue;
-			
-			Map<String, Object> itemData = new HashMap<>();
-			itemData.put("id", item.getId());
-			itemData.put("quantity", item.getQuantity());
-			itemData.put("gePrice", itemManager.getItemPrice(item.getId()));
-			itemData.put("slot", i);
-			
-			try {
-				ItemComposition itemComp = itemManager.getItemComposition(item.getId());
-				if (itemComp != null) {
-					itemData.put("name", itemComp.getName());
-				} else {
-					itemData.put("name", "Unknown");
-				}
-			} catch (Exception e) {
-				itemData.put("name", "Unknown");
-			}
-			
-			items.add(itemData);
-		}
-		
-		return items;
-	}
 }
@@ -1,5 +1,6 @@
 package com.revalclan.notifiers;
 
+import com.revalclan.util.TextNormalizer;
 import net.runelite.api.ChatMessageType;
 
 import javax.inject.Singleton;
@@ -35,14 +36,11 @@ public class ChatNotifier extends BaseNotifier {
 		ChatMessageType.NPC_EXAMINE
 	);
 
-	private static final Pattern HTML_BR = Pattern.compile("<br>");
-	private static final Pattern HTML_TAGS = Pattern.compile("<[^>]+>");
-
 	private List<String> cachedPatternStrings = Collections.emptyList();
 	private List<Pattern> cachedPatterns = Collections.emptyList();
 	
 	@Override
-	public boolean isEnabled() {
+	protected boolean computeEnabled() {
 		return config.notifyChat() && filterManager.getFilters().isChatEnabled();
 	}
 	
@@ -51,6 +49,11 @@ public class ChatNotifier extends BaseNotifier {
 		return "CHAT";
 	}
 	
+	@Override
+	protected Set<MetadataBlock> getMetadataProfile() {
+		return EnumSet.of(MetadataBlock.WORLD, MetadataBlock.LOCATION);
+	}
+	
 	/**
 	 * Handle a chat message event
 	 * @param messageType The type of chat message
@@ -78,8 +81,7 @@ public class ChatNotifier extends BaseNotifier {
 	 */
 	private String cleanMessage(String message) {
 		if (message == null) return "";
-		String cleaned = HTML_BR.matcher(message).replaceAll(" ");
-		return HTML_TAGS.matcher(cleaned).replaceAll("").trim();
+		return TextNormalizer.normalize(message, TextNormalizer.CHAT_MESSAGE);
 	}
 
 	/**
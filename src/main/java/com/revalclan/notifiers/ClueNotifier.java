@@ -7,31 +7,26 @@
  */
 package com.revalclan.notifiers;
 
+import com.revalclan.chat.ClueCompletionMessage;
+import com.revalclan.util.ItemInfoCache;
 import net.runelite.api.events.WidgetLoaded;
 import net.runelite.api.gameval.InterfaceID;
 import net.runelite.api.widgets.Widget;
+import net.runelite.client.eventbus.Subscribe;
 
 import javax.inject.Singleton;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @Singleton
 public class ClueNotifier extends BaseNotifier {
-	private static final Pattern CLUE_PATTERN = Pattern.compile(
-		"You have completed (?<count>\\d+) (?<tier>\\w+) Treasure Trails?\\.",
-		Pattern.CASE_INSENSITIVE
-	);
-
-
 	private int clueCount = -1;
 	private String clueTier = "";
 
 	@Override
-	public boolean isEnabled() {
+	protected boolean computeEnabled() {
 		return config.notifyClue() && filterManager.getFilters().isClueEnabled();
 	}
 
@@ -40,14 +35,12 @@ public class ClueNotifier extends BaseNotifier {
 		return "CLUE";
 	}
 
-	public void onChatMessage(String message) {
+	@Subscribe
+	public void onClueCompletionMessage(ClueCompletionMessage event) {
 		if (!isEnabled()) return;
 
-		Matcher matcher = CLUE_PATTERN.matcher(message);
-		if (matcher.find()) {
-			clueCount = Integer.parseInt(matcher.group("count"));
-			clueTier = matcher.group("tier");
-		}
+		clueCount = event.getCount();
+		clueTier = event.getTier();
 	}
 
 	public void onWidgetLoaded(WidgetLoaded event) {
@@ -68,8 +61,9 @@ public class ClueNotifier extends BaseNotifier {
 					int quantity = child.getItemQuantity();
 					int itemId = child.getItemId();
 					if (itemId > -1 && quantity > 0) {
-						int price = itemManager.getItemPrice(itemId);
-						String name = itemManager.getItemComposition(itemId).getName();
+						ItemInfoCache.ItemInfo info = itemInfoCache.get(itemId);
+						int price = info.getGePrice();
+						String name = info.getName();
 
 						Map<String, Object> item = new HashMap<>();
 						item.put("id", itemId);
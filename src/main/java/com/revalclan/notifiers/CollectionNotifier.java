@@ -7,21 +7,17 @@
  */
 package com.revalclan.notifiers;
 
+import com.revalclan.chat.CollectionLogItemMessage;
+import net.runelite.client.eventbus.Subscribe;
+
 import javax.inject.Singleton;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @Singleton
 public class CollectionNotifier extends BaseNotifier {
-	private static final Pattern COLLECTION_PATTERN = Pattern.compile(
-		"New item added to your collection log: (?<item>.+)",
-		Pattern.CASE_INSENSITIVE
-	);
-
 	@Override
-	public boolean isEnabled() {
+	protected boolean computeEnabled() {
 		return config.notifyCollection() && filterManager.getFilters().isCollectionEnabled();
 	}
 
@@ -30,14 +26,10 @@ public class CollectionNotifier extends BaseNotifier {
 		return "COLLECTION";
 	}
 
-	public void onChatMessage(String message) {
+	@Subscribe
+	public void onCollectionLogItemMessage(CollectionLogItemMessage event) {
 		if (!isEnabled()) return;
-
-		Matcher matcher = COLLECTION_PATTERN.matcher(message);
-		if (matcher.find()) {
-			String itemName = matcher.group("item");
-			handleCollectionItem(itemName);
-		}
+		handleCollectionItem(event.getItemName());
 	}
 
 	private void handleCollectionItem(String itemName) {
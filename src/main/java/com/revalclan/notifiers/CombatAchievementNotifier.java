@@ -14,8 +14,11 @@ public class CombatAchievementNotifier extends BaseNotifier {
 	);
 	private static final Pattern POINTS_SUFFIX = Pattern.compile("\\s+\\(\\d+ points?\\)$");
 
+	/** Phrase every combat task message contains, for the chat router */
+	public static final String[] CHAT_ANCHORS = {" combat task: "};
+
 	@Override 
-	public boolean isEnabled() {
+	protected boolean computeEnabled() {
 		return config.notifyCombatAchievement() && filterManager.getFilters().isCombatAchievementEnabled();
 	}
 
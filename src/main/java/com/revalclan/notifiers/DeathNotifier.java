@@ -7,9 +7,9 @@
  */
 package com.revalclan.notifiers;
 
+import com.revalclan.util.ItemInfoCache;
 import net.runelite.api.Actor;
 import net.runelite.api.Item;
-import net.runelite.api.ItemComposition;
 import net.runelite.api.ItemContainer;
 import net.runelite.api.NPC;
 import net.runelite.api.NPCComposition;
@@ -44,7 +44,7 @@ public class DeathNotifier extends BaseNotifier {
 	private WeakReference<Actor> lastTarget = new WeakReference<>(null);
 
 	@Override
-	public boolean isEnabled() {
+	protected boolean computeEnabled() {
 		return config.notifyDeath() && filterManager.getFilters().isDeathEnabled();
 	}
 
@@ -190,14 +190,9 @@ public class DeathNotifier extends BaseNotifier {
 		for (Item item : containerItems) {
 			if (item.getId() <= 0 || item.getQuantity() <= 0) continue;
 
-			int gePrice = itemManager.getItemPrice(item.getId());
-			String name;
-			try {
-				ItemComposition comp = itemManager.getItemComposition(item.getId());
-				name = (comp != null) ? comp.getName() : "Unknown";
-			} catch (Exception e) {
-				name = "Unknown";
-			}
+			ItemInfoCache.ItemInfo info = itemInfoCache.get(item.getId());
+			int gePrice = info.getGePrice();
+			String name = info.getName();
 
 			Map<String, Object> itemData = new HashMap<>();
 			itemData.put("id", item.getId());
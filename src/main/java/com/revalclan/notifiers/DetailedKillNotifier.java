@@ -20,7 +20,7 @@ public class DetailedKillNotifier extends BaseNotifier {
 	private String specWeaponName = null;
 
 	@Override
-	public boolean isEnabled() {
+	protected boolean computeEnabled() {
 		return config.notifyDetailedKill() && filterManager.getFilters().isDetailedKillEnabled();
 	}
 
@@ -38,7 +38,7 @@ public class DetailedKillNotifier extends BaseNotifier {
 			Player localPlayer = client.getLocalPlayer();
 			if (localPlayer != null) {
 				int weaponId = localPlayer.getPlayerComposition().getEquipmentId(net.runelite.api.kit.KitType.WEAPON);
-				specWeaponName = weaponId > 0 ? itemManager.getItemComposition(weaponId).getName() : "Unarmed";
+				specWeaponName = weaponId > 0 ? itemInfoCache.getName(weaponId) : "Unarmed";
 				specTicksRemaining = 3;
 			}
 		} else if (specTicksRemaining > 0) {
@@ -67,7 +67,7 @@ public class DetailedKillNotifier extends BaseNotifier {
 		if (localPlayer == null) return;
 
 		int weaponId = localPlayer.getPlayerComposition().getEquipmentId(net.runelite.api.kit.KitType.WEAPON);
-		String weaponName = weaponId > 0 ? itemManager.getItemComposition(weaponId).getName() : "Unarmed";
+		String weaponName = weaponId > 0 ? itemInfoCache.getName(weaponId) : "Unarmed";
 
 		boolean isSpec = specTicksRemaining > 0 && weaponName.equals(specWeaponName);
 		KillData data = activeKills.computeIfAbsent(npc, k -> new KillData(npc.getName(), npc.getId()));
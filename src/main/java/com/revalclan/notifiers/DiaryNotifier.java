@@ -7,9 +7,10 @@
  */
 package com.revalclan.notifiers;
 
+import com.revalclan.util.TickScheduler;
+import com.revalclan.util.VarDispatcher;
 import net.runelite.api.GameState;
 import net.runelite.api.events.GameStateChanged;
-import net.runelite.api.events.VarbitChanged;
 import net.runelite.client.callback.ClientThread;
 
 import javax.inject.Inject;
@@ -33,13 +34,16 @@ public class DiaryNotifier extends BaseNotifier {
 	 */
 	private static final Map<Integer, String> DIARY_VARBITS = createDiaryMap();
 
+	/** Ticks after logging in before the diary varbits are read */
+	private static final int INIT_DELAY_TICKS = 5;
+
 	@Inject private ClientThread clientThread;
 
 	private final Map<Integer, Integer> diaryCompletionById = new ConcurrentHashMap<>();
-	private int initDelayTicks = 0;
+	private TickScheduler.Timer initTimer = null;
 
 	@Override
-	public boolean isEnabled() {
+	protected boolean computeEnabled() {
 		return config.notifyDiary() && filterManager.getFilters().isDiaryEnabled();
 	}
 
@@ -49,48 +53,50 @@ public class DiaryNotifier extends BaseNotifier {
 	}
 
 	public void onGameStateChanged(GameStateChanged event) {
-		if (event.getGameState() != GameState.LOGGED_IN) {
+		if (event.getGameState() == GameState.LOGGED_IN) {
+			scheduleInitialize();
+		} else {
 			reset();
 		}
 	}
 
-	public void onGameTick() {
-		if (client.getGameState() != GameState.LOGGED_IN) return;
+	/**
+	 * Reads the diary varbits a few ticks from now while the notifier is enabled, unless
+	 * they're read or about to be
+	 */
+	public void scheduleInitialize() {
+		if (!isEnabled() || !diaryCompletionById.isEmpty() || (initTimer != null && initTimer.isPending())) return;
+		initTimer = tickScheduler.schedule(INIT_DELAY_TICKS, this::initializeDiaries);
+	}
 
-		if (initDelayTicks > 0) {
-			initDelayTicks--;
-			if (initDelayTicks == 0)
-			{
-				initializeDiaries();
-			}
-		} else if (diaryCompletionById.isEmpty() && isEnabled()) {
-			initDelayTicks = 4;
-		}
+	/**
+	 * Watches the diary completion varbits from now on
+	 */
+	public void watchVars(VarDispatcher varDispatcher) {
+		varDispatcher.watchVarbits(DIARY_VARBITS.keySet(), this::onDiaryVarbitChanged);
 	}
 
-	public void onVarbitChanged(VarbitChanged event) {
-		int id = event.getVarbitId();
-		if (id < 0) return;
-		
+	private void onDiaryVarbitChanged(int id, int value) {
 		String diaryInfo = DIARY_VARBITS.get(id);
 		if (diaryInfo == null) return;
 		if (!isEnabled()) return;
 
 		if (diaryCompletionById.isEmpty()) {
-			if (client.getGameState() == GameState.LOGGED_IN && isComplete(id, event.getValue())) return;
+			if (client.getGameState() == GameState.LOGGED_IN && isComplete(id, value)) return;
 			else return;
 		}
 
-		int value = event.getValue();
 		Integer previous = diaryCompletionById.get(id);
 
 		if (previous == null) {
 			reset();
+			scheduleInitialize();
 			return;
 		}
 
 		if (value < previous) {
 			reset();
+			scheduleInitialize();
 			return;
 		}
 
@@ -131,7 +137,7 @@ public class DiaryNotifier extends BaseNotifier {
 	}
 
 	private void initializeDiaries() {
-		if (!isEnabled()) return;
+		if (client.getGameState() != GameState.LOGGED_IN || !isEnabled()) return;
 
 		diaryCompletionById.clear();
 
@@ -141,6 +147,11 @@ public class DiaryNotifier extends BaseNotifier {
 				diaryCompletionById.put(varbitId, value);
 			}
 		}
+
+		// Try again later if nothing could be read yet
+		if (diaryCompletionById.isEmpty()) {
+			scheduleInitialize();
+		}
 	}
 
 	private int getTotalCompleted() {
@@ -160,7 +171,10 @@ public class DiaryNotifier extends BaseNotifier {
 
 	public void reset() {
 		diaryCompletionById.clear();
-		initDelayTicks = 0;
+		if (initTimer != null) {
+			initTimer.cancel();
+			initTimer = null;
+		}
 	}
 
 	private static Map<Integer, String> createDiaryMap() {
@@ -3,13 +3,15 @@ package com.revalclan.notifiers;
 import net.runelite.api.events.MenuOptionClicked;
 
 import javax.inject.Singleton;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 @Singleton
 public class EmoteNotifier extends BaseNotifier {
 	@Override
-	public boolean isEnabled() {
+	protected boolean computeEnabled() {
 		return config.notifyEmote() && filterManager.getFilters().isEmoteEnabled();
 	}
 
@@ -18,6 +20,11 @@ public class EmoteNotifier extends BaseNotifier {
 		return "EMOTE";
 	}
 
+	@Override
+	protected Set<MetadataBlock> getMetadataProfile() {
+		return EnumSet.of(MetadataBlock.WORLD, MetadataBlock.LOCATION);
+	}
+
 	public void onMenuOptionClicked(MenuOptionClicked event) {
 		if (!isEnabled()) return;
 
@@ -0,0 +1,117 @@
+package com.revalclan.notifiers;
+
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.eventbus.EventBus;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cached enabled state of the notifiers, one bit each. Reading the config goes through
+ * the config manager and the filters through {@link com.revalclan.util.EventFilterManager},
+ * too slow for handlers that run many times per tick, so {@link BaseNotifier#isEnabled()}
+ * reads this mask instead. It is recomputed only when the config, the event filters or
+ * the world change.
+ * <p>
+ * Notifiers that subscribe to the event bus themselves are registered on it only while
+ * their bit is set, so a disabled notifier isn't dispatched to at all.
+ */
+@Slf4j
+@Singleton
+public class EnabledNotifiers {
+	@Inject private EventBus eventBus;
+
+	private final List<BaseNotifier> notifiers = new ArrayList<>();
+
+	/** Bits of the notifiers that subscribe to the event bus */
+	private long subscriberMask = 0;
+
+	/** Bits of the subscribers currently registered on the event bus */
+	private long registeredMask = 0;
+
+	private volatile long mask = 0;
+
+	/**
+	 * Tracks a notifier's enabled state from now on
+	 *
+	 * @param subscriber whether it has event bus handlers, to register while enabled
+	 */
+	public synchronized void add(BaseNotifier notifier, boolean subscriber) {
+		if (notifier.enabledBit >= 0) return;
+		if (notifiers.size() == Long.SIZE) {
+			throw new IllegalStateException("At most " + Long.SIZE + " notifiers");
+		}
+
+		notifier.enabledBit = notifiers.size();
+		notifiers.add(notifier);
+		if (subscriber) {
+			subscriberMask |= 1L << notifier.enabledBit;
+		}
+	}
+
+	public boolean isEnabled(BaseNotifier notifier) {
+		int bit = notifier.enabledBit;
+		if (bit < 0) return notifier.computeEnabled();
+		return (mask & (1L << bit)) != 0;
+	}
+
+	/**
+	 * Recomputes every notifier's state and registers or unregisters subscribers whose
+	 * state changed
+	 *
+	 * @return true if any notifier was enabled or disabled
+	 */
+	public synchronized boolean refresh() {
+		long updated = 0;
+		for (BaseNotifier notifier : notifiers) {
+			try {
+				if (notifier.computeEnabled()) {
+					updated |= 1L << notifier.enabledBit;
+				}
+			} catch (Exception e) {
+				log.debug("Could not read enabled state of {}", notifier.getClass().getSimpleName(), e);
+			}
+		}
+
+		long previous = mask;
+		mask = updated;
+		syncSubscribers(updated & subscriberMask);
+
+		if (previous != updated) {
+			log.debug("Enabled notifiers changed: {} -> {}", Long.toHexString(previous), Long.toHexString(updated));
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Unregisters every subscriber and stops tracking the notifiers, e.g. on shutdown
+	 */
+	public synchronized void clear() {
+		syncSubscribers(0);
+		for (BaseNotifier notifier : notifiers) {
+			notifier.enabledBit = -1;
+		}
+		notifiers.clear();
+		subscriberMask = 0;
+		mask = 0;
+	}
+
+	private void syncSubscribers(long wanted) {
+		long changed = wanted ^ registeredMask;
+		while (changed != 0) {
+			int bit = Long.numberOfTrailingZeros(changed);
+			changed &= changed - 1;
+
+			BaseNotifier notifier = notifiers.get(bit);
+			if ((wanted & (1L << bit)) != 0) {
+				eventBus.register(notifier);
+			} else {
+				eventBus.unregister(notifier);
+			}
+		}
+		registeredMask = wanted;
+	}
+}
@@ -1,15 +1,17 @@
 package com.revalclan.notifiers;
 
+import com.revalclan.chat.DurationMessage;
+import com.revalclan.chat.KillCountMessage;
 import com.revalclan.util.RaidParty;
+import com.revalclan.util.TickScheduler;
 import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.eventbus.Subscribe;
 
 import javax.inject.Singleton;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Notifies on boss kill counts
@@ -18,34 +20,17 @@ import java.util.regex.Pattern;
 @Slf4j
 @Singleton
 public class KillCountNotifier extends BaseNotifier {
-	// Primary pattern: "Your <boss> kill/chest/completion count is: <count>"
-	private static final Pattern PRIMARY_REGEX = Pattern.compile(
-		"Your (?<key>.+?)\\s+(?<type>kill|chest|completion|harvest|success|opened)\\s?count is:?\\s*(?<value>[\\d,]+)\\b",
-		Pattern.CASE_INSENSITIVE
-	);
-	
-	// Secondary pattern: "Your completed <raid> count is: <count>"
-	private static final Pattern SECONDARY_REGEX = Pattern.compile(
-		"Your (?:completed|subdued) (?<key>.+) count is: (?<value>[\\d,]+)\\b",
-		Pattern.CASE_INSENSITIVE
-	);
-	
-	// Time pattern: "Duration: <time>" or "Time: <time> (Personal best: <pb>)"
-	private static final Pattern TIME_REGEX = Pattern.compile(
-		"(?:Duration|time|Subdued in):?\\s*(?<time>[\\d:]+(?:\\.\\d+)?)\\.?(?:\\s*\\(new personal best\\))?(?:\\s*Personal best:\\s*(?<pbtime>[\\d:]+(?:\\.\\d+)?))?",
-		Pattern.CASE_INSENSITIVE
-	);
-
 	private String pendingBoss = null;
 	private Integer pendingCount = null;
 	private Duration pendingTime = null;
 	private boolean pendingIsPb = false;
 	private List<String> pendingParty = null;
-	private int badTicks = 0;
+	/** Sends the kill once complete, or drops partial data after {@link #MAX_BAD_TICKS} */
+	private TickScheduler.Timer pendingTimer = null;
 	private static final int MAX_BAD_TICKS = 10;
 
 	@Override
-	public boolean isEnabled() {
+	protected boolean computeEnabled() {
 		return config.notifyKillCount() && filterManager.getFilters().isKillCountEnabled();
 	}
 
@@ -54,113 +39,63 @@ public class KillCountNotifier extends BaseNotifier {
 		return "KILL_COUNT";
 	}
 
-	public void onChatMessage(String message) {
+	@Subscribe
+	public void onKillCountMessage(KillCountMessage event) {
 		if (!isEnabled()) return;
-		
-		// Skip preparation messages
-		if (message.startsWith("Preparation")) return;
 
-		// Try to parse boss kill count
-		parseBossKillCount(message);
-		
-		// Try to parse time/duration
-		parseTime(message);
-	}
-	
-	/**
-	 * Called on game tick to check if we have complete data to send
-	 */
-	public void onTick() {
-		if (pendingBoss != null && pendingCount != null) {
-			// We have boss name and count - send notification
-			sendKillCountNotification();
-			reset();
-		} else if (pendingTime != null || pendingBoss != null || pendingCount != null) {
-			// We have partial data - wait a bit for the rest
-			badTicks++;
-			if (badTicks > MAX_BAD_TICKS) {
-				// Timeout - reset and give up
-				reset();
-			}
+		String boss = event.isRaid()
+			? normalizeRaidName(event.getKey())
+			: normalizeBossName(event.getKey(), event.getType());
+		if (boss == null) return;
+
+		pendingBoss = boss;
+		pendingCount = event.getCount();
+		if (event.isRaid()) {
+			// Capture the raid party (CoX widget, ToB/ToA varcs) while it is
+			// still populated; includes the local player
+			pendingParty = RaidParty.getMembers(client, boss);
 		}
+		schedulePending();
 	}
 
-	private void parseBossKillCount(String message) {
-		// Try primary pattern first
-		Matcher primary = PRIMARY_REGEX.matcher(message);
-		if (primary.find()) {
-			String rawBoss = primary.group("key");
-			String type = primary.group("type");
-			String countStr = primary.group("value").replace(",", "");
-			
-			String boss = normalizeBossName(rawBoss, type);
-			if (boss != null) {
-				try {
-					int count = Integer.parseInt(countStr);
-					pendingBoss = boss;
-					pendingCount = count;
-					badTicks = 0; // Reset bad tick counter
-				} catch (NumberFormatException e) {
-					log.debug("Failed to parse kill count: {}", countStr);
-				}
-			}
-			return;
+	@Subscribe
+	public void onDurationMessage(DurationMessage event) {
+		if (!isEnabled()) return;
+
+		if (event.isTheatreOfBloodWave() && pendingBoss == null) {
+			pendingBoss = "Theatre of Blood";
 		}
-		
-		// Try secondary pattern (raids)
-		Matcher secondary = SECONDARY_REGEX.matcher(message);
-		if (secondary.find()) {
-			String rawBoss = secondary.group("key");
-			String countStr = secondary.group("value").replace(",", "");
-			
-			String boss = normalizeRaidName(rawBoss);
-			if (boss != null) {
-				try {
-					int count = Integer.parseInt(countStr);
-					pendingBoss = boss;
-					pendingCount = count;
-					// Capture the raid party (CoX widget, ToB/ToA varcs) while it is
-					// still populated; includes the local player
-					pendingParty = RaidParty.getMembers(client, boss);
-					badTicks = 0;
-				} catch (NumberFormatException e) {
-					log.debug("Failed to parse kill count: {}", countStr);
-				}
-			}
+
+		Duration duration = parseTimeString(event.getTime());
+		if (duration != null) {
+			pendingTime = duration;
+			pendingIsPb = event.isPersonalBest();
+		} else {
+			log.debug("Failed to parse time string: {}", event.getTime());
 		}
+		schedulePending();
 	}
 	
-	private void parseTime(String message) {
-		// TOB special case: skip wave duration, get challenge time
-		String msg = message;
-		if (message.startsWith("Wave")) {
-			int tobIndex = message.indexOf("Theatre of Blood");
-			if (tobIndex > 0) {
-				msg = message.substring(tobIndex);
-				if (pendingBoss == null) {
-					pendingBoss = "Theatre of Blood";
-				}
-				log.debug("TOB wave message detected - extracted: {}", msg);
-			}
+	/**
+	 * Sends on the next tick once boss and count are known, so a time message that
+	 * follows in the same tick is included. Partial data is given up on after
+	 * {@link #MAX_BAD_TICKS} without further messages.
+	 */
+	private void schedulePending() {
+		if (pendingTimer != null) {
+			pendingTimer.cancel();
 		}
-		
-		Matcher matcher = TIME_REGEX.matcher(msg);
-		if (matcher.find()) {
-			String timeStr = matcher.group("time");
-			
-			Duration duration = parseTimeString(timeStr);
-			
-			if (duration != null) {
-				pendingTime = duration;
-				pendingIsPb = msg.toLowerCase().contains("(new personal best)") || 
-				              msg.toLowerCase().contains("new personal best");
-				badTicks = 0;
-			} else {
-				log.debug("Failed to parse time string: {}", timeStr);
-			}
+
+		if (pendingBoss != null && pendingCount != null) {
+			pendingTimer = tickScheduler.schedule(1, () -> {
+				sendKillCountNotification();
+				reset();
+			});
+		} else {
+			pendingTimer = tickScheduler.schedule(MAX_BAD_TICKS + 1, this::reset);
 		}
 	}
-	
+
 	/**
 	 * Normalize boss names based on message type
 	 */
@@ -285,7 +220,10 @@ public class KillCountNotifier extends BaseNotifier {
 		pendingTime = null;
 		pendingIsPb = false;
 		pendingParty = null;
-		badTicks = 0;
+		if (pendingTimer != null) {
+			pendingTimer.cancel();
+			pendingTimer = null;
+		}
 	}
 }
 
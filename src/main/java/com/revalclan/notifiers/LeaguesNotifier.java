@@ -2,6 +2,7 @@ package com.revalclan.notifiers;
 
 import com.revalclan.api.RevalApiService;
 import com.revalclan.api.leagues.LeaguesConfigResponse;
+import com.revalclan.util.TickScheduler;
 import net.runelite.api.WorldType;
 import net.runelite.api.gameval.VarPlayerID;
 import net.runelite.api.gameval.VarbitID;
@@ -26,6 +27,9 @@ public class LeaguesNotifier extends BaseNotifier {
 		"Congratulations, you've unlocked a new .+ Combat Mastery: (?<type>\\w+) (?<tier>\\w+)\\."
 	);
 
+	/** Phrase every message {@link #onChatMessage} acts on contains, for the chat router */
+	public static final String[] CHAT_ANCHORS = {"congratulations, you've "};
+
 	private static final Map<String, Integer> ROMAN_NUMERALS = Map.of(
 		"I", 1, "II", 2, "III", 3, "IV", 4, "V", 5, "VI", 6, "VII", 7, "VIII", 8, "IX", 9, "X", 10
 	);
@@ -43,11 +47,11 @@ public class LeaguesNotifier extends BaseNotifier {
 	private Map<String, Integer> difficultyToPoints = new HashMap<>();
 	private List<Integer> areaUnlockTasks;
 
-	private int configRetryTicks = 0;
+	private TickScheduler.Timer configRetry = null;
 	private int configRetryAttempts = 0;
 
 	@Override
-	public boolean isEnabled() {
+	protected boolean computeEnabled() {
 		return config.notifyLeagues()
 			&& filterManager.getFilters().isLeaguesEnabled()
 			&& client.getWorldType().contains(WorldType.SEASONAL);
@@ -56,7 +60,7 @@ public class LeaguesNotifier extends BaseNotifier {
 	private boolean hasConfig() {
 		LeaguesConfigResponse.LeaguesConfig cfg = getLeaguesConfig();
 		return cfg != null
-			&& cfg.getLeagueVersion() == client.getVarbitValue(VarbitID.LEAGUE_TYPE);
+			&& cfg.getLeagueVersion() == varSnapshot.getVarbit(VarbitID.LEAGUE_TYPE);
 	}
 
 	@Override
@@ -64,16 +68,12 @@ public class LeaguesNotifier extends BaseNotifier {
 		return currentEventType;
 	}
 
-	public void onGameTick() {
-		if (getLeaguesConfig() != null || configRetryAttempts >= CONFIG_MAX_RETRIES) return;
-		if (!client.getWorldType().contains(WorldType.SEASONAL)) return;
-
-		configRetryTicks++;
-		if (configRetryTicks >= CONFIG_RETRY_INTERVAL) {
-			configRetryTicks = 0;
-			configRetryAttempts++;
-			fetchConfig();
-		}
+	/**
+	 * Called when a world finished loading; retries fetching the config on a seasonal
+	 * world if earlier attempts didn't get it
+	 */
+	public void onWorldLoaded() {
+		scheduleConfigRetry();
 	}
 
 	public void fetchConfig() {
@@ -81,10 +81,26 @@ public class LeaguesNotifier extends BaseNotifier {
 			this::buildLookupMaps,
 			error -> {}
 		);
+		scheduleConfigRetry();
+	}
+
+	private void scheduleConfigRetry() {
+		if (configRetry != null && configRetry.isPending()) return;
+		if (getLeaguesConfig() != null || configRetryAttempts >= CONFIG_MAX_RETRIES) return;
+		if (!client.getWorldType().contains(WorldType.SEASONAL)) return;
+
+		configRetry = tickScheduler.schedule(CONFIG_RETRY_INTERVAL, () -> {
+			if (getLeaguesConfig() != null || !client.getWorldType().contains(WorldType.SEASONAL)) return;
+			configRetryAttempts++;
+			fetchConfig();
+		});
 	}
 
 	public void reset() {
-		configRetryTicks = 0;
+		if (configRetry != null) {
+			configRetry.cancel();
+			configRetry = null;
+		}
 		configRetryAttempts = 0;
 		revalApiService.clearLeaguesCache();
 	}
@@ -115,8 +131,8 @@ public class LeaguesNotifier extends BaseNotifier {
 	}
 
 	private void notifyTaskCompletion(String tierName, String taskName) {
-		int totalPoints = client.getVarpValue(VarPlayerID.LEAGUE_POINTS_COMPLETED);
-		int tasksCompleted = client.getVarbitValue(VarbitID.LEAGUE_TOTAL_TASKS_COMPLETED);
+		int totalPoints = varSnapshot.getVarp(VarPlayerID.LEAGUE_POINTS_COMPLETED);
+		int tasksCompleted = varSnapshot.getVarbit(VarbitID.LEAGUE_TOTAL_TASKS_COMPLETED);
 
 		currentEventType = "LEAGUES_TASK";
 		Map<String, Object> data = createBaseData();
@@ -150,7 +166,7 @@ public class LeaguesNotifier extends BaseNotifier {
 	}
 
 	private void notifyRelicUnlock(String relicName) {
-		int currentPoints = client.getVarpValue(VarPlayerID.LEAGUE_POINTS_COMPLETED);
+		int currentPoints = varSnapshot.getVarp(VarPlayerID.LEAGUE_POINTS_COMPLETED);
 
 		currentEventType = "LEAGUES_RELIC";
 		Map<String, Object> data = createBaseData();
@@ -177,7 +193,7 @@ public class LeaguesNotifier extends BaseNotifier {
 	}
 
 	private void notifyAreaUnlock(String areaName) {
-		int tasksCompleted = client.getVarbitValue(VarbitID.LEAGUE_TOTAL_TASKS_COMPLETED);
+		int tasksCompleted = varSnapshot.getVarbit(VarbitID.LEAGUE_TOTAL_TASKS_COMPLETED);
 
 		currentEventType = "LEAGUES_AREA";
 		Map<String, Object> data = createBaseData();
@@ -220,16 +236,16 @@ public class LeaguesNotifier extends BaseNotifier {
 
 	private int computeAreasUnlocked() {
 		try {
-			if (client.getVarbitValue(VarbitID.LEAGUE_AREA_SELECTION_4) > 0) return 3;
-			if (client.getVarbitValue(VarbitID.LEAGUE_AREA_SELECTION_3) > 0) return 2;
-			if (client.getVarbitValue(VarbitID.LEAGUE_AREA_SELECTION_2) > 0) return 1;
-			if (client.getVarbitValue(VarbitID.LEAGUE_AREA_SELECTION_1) > 0) return 0;
+			if (varSnapshot.getVarbit(VarbitID.LEAGUE_AREA_SELECTION_4) > 0) return 3;
+			if (varSnapshot.getVarbit(VarbitID.LEAGUE_AREA_SELECTION_3) > 0) return 2;
+			if (varSnapshot.getVarbit(VarbitID.LEAGUE_AREA_SELECTION_2) > 0) return 1;
+			if (varSnapshot.getVarbit(VarbitID.LEAGUE_AREA_SELECTION_1) > 0) return 0;
 		} catch (Exception e) {
 			// Area selection varbits not available, use task-based fallback
 		}
 
 		if (areaUnlockTasks != null) {
-			int tasksCompleted = client.getVarbitValue(VarbitID.LEAGUE_TOTAL_TASKS_COMPLETED);
+			int tasksCompleted = varSnapshot.getVarbit(VarbitID.LEAGUE_TOTAL_TASKS_COMPLETED);
 			int unlocked = 0;
 			for (int threshold : areaUnlockTasks) {
 				if (tasksCompleted >= threshold) unlocked++;
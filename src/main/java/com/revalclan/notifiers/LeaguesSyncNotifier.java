@@ -1,5 +1,6 @@
 package com.revalclan.notifiers;
 
+import com.revalclan.util.TickScheduler;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.WorldType;
 import net.runelite.api.events.WidgetLoaded;
@@ -36,11 +37,10 @@ public class LeaguesSyncNotifier extends BaseNotifier {
 	}
 
 	private List<String> cachedSelectedRelics = null;
-	private int pendingRelicRead = -1;
-	private int pendingRelicTicks = 0;
+	private TickScheduler.Timer pendingRelicRead = null;
 
 	@Override
-	public boolean isEnabled() {
+	protected boolean computeEnabled() {
 		return client.getWorldType().contains(WorldType.SEASONAL);
 	}
 
@@ -59,18 +59,16 @@ public class LeaguesSyncNotifier extends BaseNotifier {
 
 	public void onWidgetLoaded(WidgetLoaded event) {
 		if (!isEnabled() || event.getGroupId() != LEAGUES_RELICS_GROUP) return;
-		pendingRelicRead = LEAGUES_RELICS_GROUP;
-		pendingRelicTicks = RELIC_READ_DELAY_TICKS;
+		if (pendingRelicRead != null) {
+			pendingRelicRead.cancel();
+		}
+		pendingRelicRead = tickScheduler.schedule(RELIC_READ_DELAY_TICKS, this::readRelics);
 	}
 
-	public void onGameTick() {
-		if (pendingRelicRead == -1) return;
-		if (--pendingRelicTicks > 0) return;
-
-		int groupId = pendingRelicRead;
-		pendingRelicRead = -1;
+	private void readRelics() {
+		pendingRelicRead = null;
 
-		List<String> relics = extractRelics(groupId);
+		List<String> relics = extractRelics(LEAGUES_RELICS_GROUP);
 		if (!relics.isEmpty()) {
 			cachedSelectedRelics = relics;
 			sendSync();
@@ -78,8 +76,10 @@ public class LeaguesSyncNotifier extends BaseNotifier {
 	}
 
 	public void reset() {
-		pendingRelicRead = -1;
-		pendingRelicTicks = 0;
+		if (pendingRelicRead != null) {
+			pendingRelicRead.cancel();
+			pendingRelicRead = null;
+		}
 		cachedSelectedRelics = null;
 	}
 
@@ -88,18 +88,18 @@ public class LeaguesSyncNotifier extends BaseNotifier {
 	private void sendSync() {
 		Map<String, Object> data = new HashMap<>();
 		data.put("seasonalWorld", true);
-		data.put("leagueType", client.getVarbitValue(VarbitID.LEAGUE_TYPE));
-		data.put("totalPoints", client.getVarpValue(VarPlayerID.LEAGUE_POINTS_COMPLETED));
-		data.put("tasksCompleted", client.getVarbitValue(VarbitID.LEAGUE_TOTAL_TASKS_COMPLETED));
+		data.put("leagueType", varSnapshot.getVarbit(VarbitID.LEAGUE_TYPE));
+		data.put("totalPoints", varSnapshot.getVarp(VarPlayerID.LEAGUE_POINTS_COMPLETED));
+		data.put("tasksCompleted", varSnapshot.getVarbit(VarbitID.LEAGUE_TOTAL_TASKS_COMPLETED));
 
 		List<Map<String, Object>> areas = new ArrayList<>();
 		for (int areaId : new int[]{
-			client.getVarbitValue(VarbitID.LEAGUE_AREA_SELECTION_0),
-			client.getVarbitValue(VarbitID.LEAGUE_AREA_SELECTION_1),
-			client.getVarbitValue(VarbitID.LEAGUE_AREA_SELECTION_2),
-			client.getVarbitValue(VarbitID.LEAGUE_AREA_SELECTION_3),
-			client.getVarbitValue(VarbitID.LEAGUE_AREA_SELECTION_4),
-			client.getVarbitValue(VarbitID.LEAGUE_AREA_SELECTION_5)
+			varSnapshot.getVarbit(VarbitID.LEAGUE_AREA_SELECTION_0),
+			varSnapshot.getVarbit(VarbitID.LEAGUE_AREA_SELECTION_1),
+			varSnapshot.getVarbit(VarbitID.LEAGUE_AREA_SELECTION_2),
+			varSnapshot.getVarbit(VarbitID.LEAGUE_AREA_SELECTION_3),
+			varSnapshot.getVarbit(VarbitID.LEAGUE_AREA_SELECTION_4),
+			varSnapshot.getVarbit(VarbitID.LEAGUE_AREA_SELECTION_5)
 		}) {
 			if (areaId != 0) {
 				Map<String, Object> area = new HashMap<>();
@@ -17,7 +17,7 @@ public class LevelNotifier extends BaseNotifier {
 	private final Map<Skill, Integer> previousXp = new EnumMap<>(Skill.class);
 
 	@Override
-	public boolean isEnabled() {
+	protected boolean computeEnabled() {
 		return config.notifyLevel() && filterManager.getFilters().isLevelEnabled();
 	}
 
@@ -17,7 +17,7 @@ public class LoginNotifier extends BaseNotifier {
 	private PlayerDataCollector dataCollector;
 	
 	@Override
-	public boolean isEnabled() {
+	protected boolean computeEnabled() {
 		return true;
 	}
 
@@ -1,6 +1,9 @@
 package com.revalclan.notifiers;
 
+import com.revalclan.chat.CollectionLogItemMessage;
+import com.revalclan.util.ItemInfoCache;
 import com.revalclan.util.RaidParty;
+import com.revalclan.util.TickScheduler;
 import net.runelite.api.NPC;
 import net.runelite.api.gameval.ItemID;
 import net.runelite.api.gameval.NpcID;
@@ -14,15 +17,15 @@ import net.runelite.http.api.loottracker.LootRecordType;
 
 import javax.inject.Singleton;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @Singleton
 public class LootNotifier extends BaseNotifier {
-	private static final Pattern COLLECTION_LOG_PATTERN = Pattern.compile(
-		"New item added to your collection log: (?<item>.+)",
-		Pattern.CASE_INSENSITIVE
-	);
+	/** Phrases every game message {@link #onGameMessage} acts on contains, for the chat router. */
+	public static final String[] CHAT_ANCHORS = {
+		"pharaoh's sceptre",
+		"you catch a ",
+		"received some paint"
+	};
 
 	/** Ticks to hold a loot payload before sending (correlation window). */
 	private static final int LOOT_BUFFER_TICKS = 2;
@@ -31,22 +34,19 @@ public class LootNotifier extends BaseNotifier {
 	private static final int CLOG_MESSAGE_TTL_TICKS = 10;
 
 	/** Lowercased item name → tick the clog announcement was seen on. */
-	private final Map<String, Integer> recentClogItems = new HashMap<>();
+	private final Map<String, Long> recentClogItems = new HashMap<>();
 
 	/** Loot payloads waiting out the correlation window. */
 	private final List<PendingLoot> pendingLoot = new ArrayList<>();
 
-	private int tickCounter = 0;
-
 	private static class PendingLoot {
 		final Map<String, Object> lootData;
 		final List<Map<String, Object>> items;
-		final int sendOnTick;
+		TickScheduler.Timer timer;
 
-		PendingLoot(Map<String, Object> lootData, List<Map<String, Object>> items, int sendOnTick) {
+		PendingLoot(Map<String, Object> lootData, List<Map<String, Object>> items) {
 			this.lootData = lootData;
 			this.items = items;
-			this.sendOnTick = sendOnTick;
 		}
 	}
 
@@ -132,7 +132,7 @@ public class LootNotifier extends BaseNotifier {
 	);
 
 	@Override
-	public boolean isEnabled() {
+	protected boolean computeEnabled() {
 		return config.notifyLoot() && filterManager.getFilters().isLootEnabled();
 	}
 
@@ -207,18 +207,24 @@ public class LootNotifier extends BaseNotifier {
 	}
 
 	/**
-	 * Handle game messages for special loot cases that don't fire normal loot events,
-	 * and record collection log announcements for loot correlation
+	 * Record collection log announcements for the buffered loot's new-slot flag
 	 */
-	public void onGameMessage(String message) {
+	@Subscribe
+	public void onCollectionLogItemMessage(CollectionLogItemMessage event) {
 		if (!isEnabled()) return;
+		String name = event.getItemName().toLowerCase();
+		Long seenTick = tickScheduler.getTick();
+		recentClogItems.put(name, seenTick);
 
-		// Track "New item added to your collection log: X" for the buffered loot flag
-		Matcher clogMatcher = COLLECTION_LOG_PATTERN.matcher(message);
-		if (clogMatcher.find()) {
-			recentClogItems.put(clogMatcher.group("item").trim().toLowerCase(), tickCounter);
-			return;
-		}
+		// Expire the announcement so the map can't grow unbounded
+		tickScheduler.schedule(CLOG_MESSAGE_TTL_TICKS + 1, () -> recentClogItems.remove(name, seenTick));
+	}
+
+	/**
+	 * Handle game messages for special loot cases that don't fire normal loot events
+	 */
+	public void onGameMessage(String message) {
+		if (!isEnabled()) return;
 
 		// Pyramid Plunder: Pharaoh's sceptre doesn't fire a normal loot event
 		if ("You have found the Pharaoh's sceptre!".equals(message) || "You have found a Pharaoh's sceptre!".equals(message)) {
@@ -234,40 +240,33 @@ public class LootNotifier extends BaseNotifier {
 	}
 
 	/**
-	 * Flush loot payloads whose correlation window has elapsed, marking each item
-	 * with whether the game announced it as a new collection log slot
+	 * Send every buffered loot payload right away, without waiting out the
+	 * correlation window. Called on shutdown so buffered drops reach the outbox.
 	 */
-	public void onGameTick() {
-		tickCounter++;
-
-		if (!pendingLoot.isEmpty()) {
-			Iterator<PendingLoot> it = pendingLoot.iterator();
-			while (it.hasNext()) {
-				PendingLoot pending = it.next();
-				if (tickCounter >= pending.sendOnTick) {
-					// Remove before sending so a failure can never wedge the
-					// queue into retrying (and re-throwing) every tick
-					it.remove();
-					try {
-						for (Map<String, Object> item : pending.items) {
-							String name = String.valueOf(item.get("name")).toLowerCase();
-							Integer seenTick = recentClogItems.get(name);
-							boolean isNewClogSlot = seenTick != null
-								&& tickCounter - seenTick <= CLOG_MESSAGE_TTL_TICKS;
-							item.put("isNewCollectionLogItem", isNewClogSlot);
-						}
-						sendNotification(pending.lootData);
-					} catch (Exception ignored) {
-						// Never let one payload break the tick dispatch for
-						// other pending loot or the notifiers after us
-					}
-				}
-			}
+	public void flushPendingLoot() {
+		for (PendingLoot pending : new ArrayList<>(pendingLoot)) {
+			sendPendingLoot(pending);
 		}
+	}
 
-		// Expire stale clog announcements so the map can't grow unbounded
-		if (!recentClogItems.isEmpty()) {
-			recentClogItems.values().removeIf(tick -> tickCounter - tick > CLOG_MESSAGE_TTL_TICKS);
+	/**
+	 * Mark each item with whether the game announced it as a new collection log slot
+	 * during the correlation window, and send the payload
+	 */
+	private void sendPendingLoot(PendingLoot pending) {
+		// Remove before sending so a failure can never send the payload twice
+		pending.timer.cancel();
+		pendingLoot.remove(pending);
+
+		try {
+			for (Map<String, Object> item : pending.items) {
+				String name = String.valueOf(item.get("name")).toLowerCase();
+				boolean isNewClogSlot = recentClogItems.containsKey(name);
+				item.put("isNewCollectionLogItem", isNewClogSlot);
+			}
+			sendNotification(pending.lootData);
+		} catch (Exception ignored) {
+			// Never let one payload break the flush of the others
 		}
 	}
 
@@ -293,10 +292,11 @@ public class LootNotifier extends BaseNotifier {
 			// Skip blacklisted items
 			if (blacklistItemIds.contains(itemId)) continue;
 
-			int gePrice = itemManager.getItemPrice(itemId);
-			int haValue = itemManager.getItemComposition(itemId).getPrice();
-			boolean isTradeable = itemManager.getItemComposition(itemId).isTradeable();
-			String itemName = itemManager.getItemComposition(itemId).getName();
+			ItemInfoCache.ItemInfo info = itemInfoCache.get(itemId);
+			int gePrice = info.getGePrice();
+			int haValue = info.getHaValue();
+			boolean isTradeable = info.isTradeable();
+			String itemName = info.getName();
 
 			Map<String, Object> itemData = new HashMap<>();
 			itemData.put("id", itemId);
@@ -335,7 +335,9 @@ public class LootNotifier extends BaseNotifier {
 		lootData.put("items", itemsList);
 
 		// Buffer for the clog correlation window instead of sending immediately;
-		// onGameTick stamps isNewCollectionLogItem on each item and sends
-		pendingLoot.add(new PendingLoot(lootData, itemsList, tickCounter + LOOT_BUFFER_TICKS));
+		// sendPendingLoot stamps isNewCollectionLogItem on each item and sends
+		PendingLoot pending = new PendingLoot(lootData, itemsList);
+		pending.timer = tickScheduler.schedule(LOOT_BUFFER_TICKS, () -> sendPendingLoot(pending));
+		pendingLoot.add(pending);
 	}
 }
@@ -0,0 +1,34 @@
+package com.revalclan.notifiers;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Context blocks {@link BaseNotifier} can attach to an event on top of the event's own
+ * data. Each notifier declares the blocks it needs; the server can override that per
+ * event type in the event filters, using the keys below.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum MetadataBlock {
+	/** world */
+	WORLD("world"),
+	/** worldX, worldY, plane and regionId */
+	LOCATION("location"),
+	/** Inventory items with names and prices */
+	INVENTORY("inventory"),
+	/** Equipped items with names and prices */
+	EQUIPMENT("equipment");
+
+	private final String key;
+
+	/**
+	 * @return the block with this event-filters key, or null
+	 */
+	public static MetadataBlock fromKey(String key) {
+		for (MetadataBlock block : values()) {
+			if (block.key.equals(key)) return block;
+		}
+		return null;
+	}
+}
@@ -1,20 +1,21 @@
 package com.revalclan.notifiers;
 
+import com.revalclan.util.TextNormalizer;
 import net.runelite.api.events.MenuOptionClicked;
 import net.runelite.api.gameval.InterfaceID;
 
 import javax.inject.Singleton;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 @Singleton
 public class MusicNotifier extends BaseNotifier {
 	private static final int MUSIC_INTERFACE = InterfaceID.MUSIC;
-	private static final Pattern HTML_TAGS = Pattern.compile("<[^>]+>");
 
 	@Override
-	public boolean isEnabled() {
+	protected boolean computeEnabled() {
 		return config.notifyMusic() && filterManager.getFilters().isMusicEnabled();
 	}
 
@@ -23,6 +24,11 @@ public class MusicNotifier extends BaseNotifier {
 		return "MUSIC_PLAYED";
 	}
 
+	@Override
+	protected Set<MetadataBlock> getMetadataProfile() {
+		return EnumSet.of(MetadataBlock.WORLD, MetadataBlock.LOCATION);
+	}
+
 	public void onMenuOptionClicked(MenuOptionClicked event) {
 		if (!isEnabled()) return;
 		
@@ -32,7 +38,7 @@ public class MusicNotifier extends BaseNotifier {
 		int widgetGroup = widgetId >> 16;
 		
 		if ("Play".equals(menuOption) && widgetGroup == MUSIC_INTERFACE) {
-			String trackName = HTML_TAGS.matcher(menuTarget).replaceAll("").trim();
+			String trackName = TextNormalizer.normalize(menuTarget, TextNormalizer.STRIP_HTML_TAGS | TextNormalizer.TRIM);
 			
 			if (!trackName.isEmpty()) {
 				Map<String, Object> musicData = new HashMap<>();
@@ -1,43 +1,24 @@
 package com.revalclan.notifiers;
 
+import com.revalclan.chat.CollectionLogItemMessage;
+import com.revalclan.chat.PetDropMessage;
+import com.revalclan.chat.UntradeableDropMessage;
+import com.revalclan.util.TextNormalizer;
+import com.revalclan.util.TickScheduler;
 import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.eventbus.Subscribe;
 
 import javax.inject.Singleton;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 @Slf4j
 @Singleton
 public class PetNotifier extends BaseNotifier {
-	/**
-	 * Pattern matching the initial pet drop message
-	 */
-	private static final Pattern PET_PATTERN = Pattern.compile(
-		"You (?:have a funny feeling like you(?:'re being followed| would have been followed)|feel something weird sneaking into your backpack)\\.?",
-		Pattern.CASE_INSENSITIVE
-	);
-
-	/**
-	 * Pattern matching untradeable drop messages (e.g., "Untradeable drop: Pet zilyana")
-	 */
-	private static final Pattern UNTRADEABLE_PATTERN = Pattern.compile(
-		"Untradeable drop: (.+)",
-		Pattern.CASE_INSENSITIVE
-	);
-
-	/**
-	 * Pattern matching collection log messages (e.g., "New item added to your collection log: Pet zilyana")
-	 */
-	private static final Pattern COLLECTION_LOG_PATTERN = Pattern.compile(
-		"New item added to your collection log: (.+)",
-		Pattern.CASE_INSENSITIVE
-	);
-
 	/**
 	 * Pattern matching clan pet notifications
 	 * Matches formats like:
@@ -77,12 +58,12 @@ public class PetNotifier extends BaseNotifier {
 	private volatile String killCount = null;
 
 	/**
-	 * Number of ticks waited for pet name
+	 * Fires when the wait for the rest of the pet messages is over
 	 */
-	private final AtomicInteger ticksWaited = new AtomicInteger(0);
+	private TickScheduler.Timer waitTimer = null;
 
 	@Override
-	public boolean isEnabled() {
+	protected boolean computeEnabled() {
 		return config.notifyPet() && filterManager.getFilters().isPetEnabled();
 	}
 
@@ -92,41 +73,39 @@ public class PetNotifier extends BaseNotifier {
 	}
 
 	/**
-	 * Handle chat messages - looks for initial pet message and follow-up messages with pet name
+	 * The personal pet drop message; the pet's name follows in later messages
 	 */
-	public void onChatMessage(String message) {
+	@Subscribe
+	public void onPetDropMessage(PetDropMessage event) {
 		if (!isEnabled()) return;
 
-		// Check for the personal pet drop message
-		Matcher petMatcher = PET_PATTERN.matcher(message);
-		if (petMatcher.find()) {
-			this.seenGameMessage = true;
-			this.gameMessage = message;
-			this.ticksWaited.set(0);
-			return;
-		}
+		this.seenGameMessage = true;
+		this.gameMessage = event.getMessage();
+		scheduleWait(true);
+	}
 
-		// If we've seen a pet message, look for follow-up messages with pet name
-		if (this.seenGameMessage && this.petName == null) {
-			// Check for untradeable drop message (new pets only, not duplicates)
-			Matcher untradeableMatcher = UNTRADEABLE_PATTERN.matcher(message);
-			if (untradeableMatcher.find()) {
-				String itemName = untradeableMatcher.group(1).trim();
-				if (isPetItem(itemName)) {
-					this.petName = itemName;
-					return;
-				}
-			}
+	/**
+	 * "Untradeable drop: X" names a new pet; duplicates don't get this message
+	 */
+	@Subscribe
+	public void onUntradeableDropMessage(UntradeableDropMessage event) {
+		if (!isEnabled()) return;
+		capturePetName(event.getItemName());
+	}
 
-			// Check for collection log message (new pets only, not duplicates)
-			Matcher collectionMatcher = COLLECTION_LOG_PATTERN.matcher(message);
-			if (collectionMatcher.find()) {
-				String itemName = collectionMatcher.group(1).trim();
-				if (isPetItem(itemName)) {
-					this.petName = itemName;
-					return;
-				}
-			}
+	/**
+	 * A collection log addition names a new pet as well
+	 */
+	@Subscribe
+	public void onCollectionLogItemMessage(CollectionLogItemMessage event) {
+		if (!isEnabled()) return;
+		capturePetName(event.getItemName());
+	}
+
+	private void capturePetName(String itemName) {
+		if (this.seenGameMessage && this.petName == null && isPetItem(itemName)) {
+			this.petName = itemName;
+			scheduleWait(false);
 		}
 	}
 
@@ -137,7 +116,7 @@ public class PetNotifier extends BaseNotifier {
 	public void onClanNotification(String message) {
 		if (!isEnabled()) return;
 
-		String normalized = message.replace('\u00A0', ' ');
+		String normalized = TextNormalizer.normalize(message, TextNormalizer.NBSP_AS_SPACE);
 		Matcher clanMatcher = CLAN_REGEX.matcher(normalized);
 		if (clanMatcher.find()) {
 			String user = cleanUsername(clanMatcher.group("user"));
@@ -161,48 +140,37 @@ public class PetNotifier extends BaseNotifier {
 					this.killCount = milestone.trim();
 				}
 
-				// If we haven't seen the game message yet, mark that we've seen clan info
+				// If we haven't seen the game message yet, wait for it from now on
 				// The game message should arrive soon (or may have already arrived)
-				if (!seenGameMessage) {
-					this.ticksWaited.set(0);
-				}
+				scheduleWait(!seenGameMessage);
 			}
 		}
 	}
 
 	/**
-	 * Called on each game tick - checks if we should send notification
+	 * Waits for the rest of the pet messages. With the personal game message and the pet
+	 * name both known the notification goes out next tick; otherwise it goes out without
+	 * the name after {@link #MAX_TICKS_WAIT}, or, without the game message, is dropped as
+	 * not being our pet.
+	 *
+	 * @param restart whether the wait starts over instead of continuing
 	 */
-	public void onGameTick() {
-		if (!this.seenGameMessage && this.petName == null) {
+	private void scheduleWait(boolean restart) {
+		boolean complete = this.seenGameMessage && this.petName != null;
+		if (!complete && !restart && this.waitTimer != null && this.waitTimer.isPending()) {
 			return;
 		}
 
-		// We need the personal game message to confirm it's actually a pet drop
-		// But we may have gotten clan info first, so wait for game message
-		if (!this.seenGameMessage) {
-			int ticks = this.ticksWaited.incrementAndGet();
-			if (ticks > MAX_TICKS_WAIT) {
-				// Clan info arrived but no game message - this wasn't our pet
-				reset();
-			}
-			return;
-		}
-
-		// We have the game message - check if we have complete info or should wait
-		if (this.petName != null) {
-			handleNotify();
-			reset();
-			return;
+		if (this.waitTimer != null) {
+			this.waitTimer.cancel();
 		}
-
-		// Still waiting for pet name
-		int ticks = this.ticksWaited.incrementAndGet();
-		if (ticks > MAX_TICKS_WAIT) {
-			// Timeout - send notification without pet name
-			handleNotify();
+		this.waitTimer = tickScheduler.schedule(complete ? 1 : MAX_TICKS_WAIT + 1, () -> {
+			// We need the personal game message to confirm it's actually a pet drop
+			if (this.seenGameMessage) {
+				handleNotify();
+			}
 			reset();
-		}
+		});
 	}
 
 	/**
@@ -239,7 +207,10 @@ public class PetNotifier extends BaseNotifier {
 		this.gameMessage = null;
 		this.petName = null;
 		this.killCount = null;
-		this.ticksWaited.set(0);
+		if (this.waitTimer != null) {
+			this.waitTimer.cancel();
+			this.waitTimer = null;
+		}
 	}
 
 	/**
@@ -345,29 +316,12 @@ public class PetNotifier extends BaseNotifier {
 		return false;
 	}
 
-	/** Pre-compiled patterns for cleaning usernames (avoids recompiling on every call). */
-	private static final Pattern LEADING_NON_WORD = Pattern.compile("^[^\\w\\s]+");
-	private static final Pattern CONTROL_CHARS = Pattern.compile("[\\u0000-\\u001F\\u007F-\\u009F]");
-	private static final Pattern GENERAL_PUNCTUATION = Pattern.compile("[\\u2000-\\u206F]");
-	private static final Pattern CURRENCY_SYMBOLS = Pattern.compile("[\\u20A0-\\u20CF]");
-	private static final Pattern ARROWS = Pattern.compile("[\\u2190-\\u21FF]");
-	private static final Pattern MISC_SYMBOLS = Pattern.compile("[\\u2600-\\u26FF]");
-	private static final Pattern DINGBATS = Pattern.compile("[\\u2700-\\u27BF]");
-
 	/**
 	 * Clean username by removing icons, special characters, and extra whitespace.
 	 * Handles Ironman icons and other special characters that appear before usernames.
 	 */
 	private String cleanUsername(String username) {
 		if (username == null) return "";
-
-		String cleaned = LEADING_NON_WORD.matcher(username).replaceAll("");
-		cleaned = CONTROL_CHARS.matcher(cleaned).replaceAll("");
-		cleaned = GENERAL_PUNCTUATION.matcher(cleaned).replaceAll("");
-		cleaned = CURRENCY_SYMBOLS.matcher(cleaned).replaceAll("");
-		cleaned = ARROWS.matcher(cleaned).replaceAll("");
-		cleaned = MISC_SYMBOLS.matcher(cleaned).replaceAll("");
-		cleaned = DINGBATS.matcher(cleaned).replaceAll("");
-		return cleaned.trim();
+		return TextNormalizer.normalize(username, TextNormalizer.CLAN_USERNAME);
 	}
 }
@@ -15,7 +15,7 @@ import java.util.Map;
 @Singleton
 public class QuestNotifier extends BaseNotifier {
 	@Override
-	public boolean isEnabled() {
+	protected boolean computeEnabled() {
 		return config.notifyQuest() && filterManager.getFilters().isQuestEnabled();
 	}
 
@@ -41,9 +41,9 @@ public class QuestNotifier extends BaseNotifier {
 		String questName = parseQuestName(questText);
 		if (questName == null) return;
 
-		int questPoints = client.getVarpValue(VarPlayerID.QP);
-		int completedQuests = client.getVarbitValue(VarbitID.QUESTS_COMPLETED_COUNT);
-		int totalQuests = client.getVarbitValue(VarbitID.QUESTS_TOTAL_COUNT);
+		int questPoints = varSnapshot.getVarp(VarPlayerID.QP);
+		int completedQuests = varSnapshot.getVarbit(VarbitID.QUESTS_COMPLETED_COUNT);
+		int totalQuests = varSnapshot.getVarbit(VarbitID.QUESTS_TOTAL_COUNT);
 
 		Map<String, Object> questData = new HashMap<>();
 		questData.put("questName", questName);
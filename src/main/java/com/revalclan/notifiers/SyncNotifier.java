@@ -16,7 +16,7 @@ public class SyncNotifier extends BaseNotifier {
 	private PlayerDataCollector dataCollector;
 
 	@Override
-	public boolean isEnabled() {
+	protected boolean computeEnabled() {
 		return true;
 	}
 
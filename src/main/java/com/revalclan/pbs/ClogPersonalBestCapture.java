@@ -1,5 +1,6 @@
 package com.revalclan.pbs;
 
+import com.revalclan.util.TextNormalizer;
 import net.runelite.api.Client;
 import net.runelite.api.ScriptID;
 import net.runelite.api.events.ScriptPostFired;
@@ -7,7 +8,6 @@ import net.runelite.api.widgets.Widget;
 import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.Subscribe;
-import net.runelite.client.util.Text;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -86,6 +86,6 @@ public class ClogPersonalBestCapture {
 	/** Widget text without color tags and non-breaking spaces. */
 	private static String clean(Widget widget) {
 		String text = widget == null ? null : widget.getText();
-		return text == null ? "" : Text.removeTags(text).replace('\u00A0', ' ').trim();
+		return text == null ? "" : TextNormalizer.normalize(text, TextNormalizer.WIDGET_TEXT);
 	}
 }
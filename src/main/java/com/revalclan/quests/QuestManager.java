@@ -1,5 +1,6 @@
 package com.revalclan.quests;
 
+import com.revalclan.util.VarSnapshot;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.Quest;
@@ -17,6 +18,7 @@ import java.util.Map;
 @Singleton
 public class QuestManager {
 	@Inject private Client client;
+	@Inject private VarSnapshot varSnapshot;
 
 	/**
 	 * Sync and get quest completion data
@@ -30,7 +32,7 @@ public class QuestManager {
 			questStates.put(quest.getName(), state.name());
 		}
 		
-		questData.put("questPoints", client.getVarpValue(101));
+		questData.put("questPoints", varSnapshot.getVarp(101));
 		questData.put("questStates", questStates);
 		
 		return questData;
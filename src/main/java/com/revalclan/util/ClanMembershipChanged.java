@@ -0,0 +1,12 @@
+package com.revalclan.util;
+
+import lombok.Value;
+
+/**
+ * Posted by {@link ClanMembershipTracker} when the player starts or stops passing clan validation
+ */
+@Value
+public class ClanMembershipChanged {
+	boolean member;
+	ClanValidator.Verdict verdict;
+}
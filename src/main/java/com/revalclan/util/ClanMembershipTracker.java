@@ -0,0 +1,111 @@
+package com.revalclan.util;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.clan.ClanChannelMember;
+import net.runelite.api.events.ClanChannelChanged;
+import net.runelite.api.events.ClanMemberJoined;
+import net.runelite.api.events.ClanMemberLeft;
+import net.runelite.client.eventbus.EventBus;
+import net.runelite.client.util.Text;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Caches whether the player passes clan validation, so sending an event reads a field
+ * instead of searching the clan roster. The verdict is re-evaluated when the clan
+ * channel changes and when the local player joins or leaves it; rank changes have no
+ * client event of their own, so it is also re-evaluated every
+ * {@link #RECHECK_INTERVAL_TICKS} while logged in.
+ * <p>
+ * Posts {@link ClanMembershipChanged} when the player starts or stops being a member.
+ */
+@Slf4j
+@Singleton
+public class ClanMembershipTracker {
+	private static final int RECHECK_INTERVAL_TICKS = 100;
+
+	@Inject private Client client;
+
+	@Inject private EventBus eventBus;
+
+	@Inject private TickScheduler tickScheduler;
+
+	@Getter
+	private volatile ClanValidator.Verdict verdict = ClanValidator.Verdict.NOT_IN_CLAN;
+
+	private TickScheduler.Timer recheck = null;
+
+	public boolean isMember() {
+		return verdict == ClanValidator.Verdict.MEMBER;
+	}
+
+	public void onClanChannelChanged(ClanChannelChanged event) {
+		// Guest channels never count
+		if (event.isGuest()) return;
+		update();
+	}
+
+	public void onClanMemberJoined(ClanMemberJoined event) {
+		if (isLocalPlayer(event.getClanMember())) update();
+	}
+
+	public void onClanMemberLeft(ClanMemberLeft event) {
+		if (isLocalPlayer(event.getClanMember())) update();
+	}
+
+	/**
+	 * Re-evaluates the verdict now; client thread only
+	 */
+	public void update() {
+		if (recheck != null) {
+			recheck.cancel();
+			recheck = null;
+		}
+
+		GameState state = client.getGameState();
+		if (state != GameState.LOGGED_IN && state != GameState.LOADING) {
+			setVerdict(ClanValidator.Verdict.NOT_IN_CLAN);
+			return;
+		}
+
+		ClanValidator.Verdict updated = ClanValidator.evaluate(client);
+		setVerdict(updated);
+
+		// Right after login the local player may not be loaded yet
+		recheck = tickScheduler.schedule(updated == ClanValidator.Verdict.UNKNOWN ? 1 : RECHECK_INTERVAL_TICKS, this::update);
+	}
+
+	/**
+	 * Forgets the verdict and stops re-evaluating it, e.g. on logout
+	 */
+	public void reset() {
+		if (recheck != null) {
+			recheck.cancel();
+			recheck = null;
+		}
+		setVerdict(ClanValidator.Verdict.NOT_IN_CLAN);
+	}
+
+	private void setVerdict(ClanValidator.Verdict updated) {
+		ClanValidator.Verdict previous = verdict;
+		if (previous == updated) return;
+
+		verdict = updated;
+		log.debug("Clan validation: {} -> {}", previous, updated);
+
+		boolean member = updated == ClanValidator.Verdict.MEMBER;
+		if (member != (previous == ClanValidator.Verdict.MEMBER)) {
+			eventBus.post(new ClanMembershipChanged(member, updated));
+		}
+	}
+
+	private boolean isLocalPlayer(ClanChannelMember member) {
+		if (member == null || member.getName() == null) return false;
+		if (client.getLocalPlayer() == null || client.getLocalPlayer().getName() == null) return true;
+		return Text.standardize(member.getName()).equals(Text.standardize(client.getLocalPlayer().getName()));
+	}
+}
@@ -22,33 +22,54 @@ public class ClanValidator {
 	
 	// ===============================================
 
+	/** Outcome of a clan check */
+	public enum Verdict {
+		MEMBER,
+		NOT_IN_CLAN,
+		WRONG_CLAN,
+		RANK_TOO_LOW,
+		/** The local player isn't loaded yet, so membership can't be told */
+		UNKNOWN
+	}
+
 	/**
 	 * Validate that the player is in the required clan with sufficient rank
 	 * @param client The RuneLite client instance
 	 * @return true if player passes clan validation (or validation is disabled)
 	 */
 	public static boolean validateClan(Client client) {
+		return evaluate(client) == Verdict.MEMBER;
+	}
+
+	/**
+	 * Check the player's clan and rank. Searches the clan roster, so prefer the verdict
+	 * cached by {@link ClanMembershipTracker}.
+	 * @param client The RuneLite client instance
+	 * @return why the player does or doesn't pass clan validation
+	 */
+	public static Verdict evaluate(Client client) {
 		if (REQUIRED_CLAN_NAME == null || REQUIRED_CLAN_NAME.trim().isEmpty()) {
-			return true;
+			return Verdict.MEMBER;
 		}
 
 		ClanChannel clanChannel = client.getClanChannel();
-		if (clanChannel == null) return false;
+		if (clanChannel == null) return Verdict.NOT_IN_CLAN;
 
 		boolean isInTheWrongClan = !REQUIRED_CLAN_NAME.equalsIgnoreCase(clanChannel.getName());
-		if (isInTheWrongClan) return false;
+		if (isInTheWrongClan) return Verdict.WRONG_CLAN;
 
-		if (MINIMUM_CLAN_RANK == null) return true;
+		if (MINIMUM_CLAN_RANK == null) return Verdict.MEMBER;
 
-		String playerName = client.getLocalPlayer() != null ? client.getLocalPlayer().getName() : "Unknown";
-		ClanChannelMember member = clanChannel.findMember(playerName);		
-		if (member == null) return false;
+		if (client.getLocalPlayer() == null || client.getLocalPlayer().getName() == null) return Verdict.UNKNOWN;
+
+		String playerName = client.getLocalPlayer().getName();
+		ClanChannelMember member = clanChannel.findMember(playerName);
+		if (member == null) return Verdict.NOT_IN_CLAN;
 
 		ClanRank playerRank = member.getRank();
 		boolean isBelowMinimumRank = playerRank.getRank() < MINIMUM_CLAN_RANK.getRank();
-		if (isBelowMinimumRank) return false;
+		if (isBelowMinimumRank) return Verdict.RANK_TOO_LOW;
 
-		return true;
+		return Verdict.MEMBER;
 	}
 }
-
@@ -0,0 +1,152 @@
+package com.revalclan.util;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.Client;
+import net.runelite.api.Item;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.events.ItemContainerChanged;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps a pre-built copy of the inventory and equipment, rebuilt only when the
+ * container changes, so events don't walk the containers and look up every item.
+ * <p>
+ * Events reference a snapshot by its content hash and carry the items themselves until
+ * an event carrying them is acknowledged; the server keeps the snapshots it has seen.
+ * If it reports a hash it doesn't have, the next event sends that snapshot in full again.
+ */
+@Slf4j
+@Singleton
+public class ContainerSnapshotTracker {
+	public static final int INVENTORY = 93;
+	public static final int EQUIPMENT = 94;
+
+	/** Hashes remembered as delivered; older ones are sent in full again if they come back */
+	private static final int MAX_SENT_HASHES = 64;
+
+	@Getter
+	public static class Snapshot {
+		private final String hash;
+		private final List<Map<String, Object>> items;
+
+		Snapshot(String hash, List<Map<String, Object>> items) {
+			this.hash = hash;
+			this.items = items;
+		}
+	}
+
+	@Inject private Client client;
+
+	@Inject private ItemInfoCache itemInfoCache;
+
+	/** Client thread only */
+	private final Map<Integer, Snapshot> snapshots = new HashMap<>();
+
+	private final Map<String, Boolean> sent = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+			return size() > MAX_SENT_HASHES;
+		}
+	};
+
+	public void onItemContainerChanged(ItemContainerChanged event) {
+		int containerId = event.getContainerId();
+		if (containerId != INVENTORY && containerId != EQUIPMENT) return;
+
+		snapshots.put(containerId, build(event.getItemContainer()));
+	}
+
+	/**
+	 * @return the current snapshot of a container, built now if it hasn't changed since
+	 *         the plugin started. Must be called on the client thread.
+	 */
+	public Snapshot get(int containerId) {
+		Snapshot snapshot = snapshots.get(containerId);
+		if (snapshot == null) {
+			snapshot = build(client.getItemContainer(containerId));
+			snapshots.put(containerId, snapshot);
+		}
+		return snapshot;
+	}
+
+	/**
+	 * @return true if the server has acknowledged this snapshot and the hash is enough,
+	 *         false if the items must be sent in full
+	 */
+	public synchronized boolean isSent(String hash) {
+		return sent.get(hash) != null;
+	}
+
+	/**
+	 * Records that the server acknowledged an event carrying this snapshot in full. Until
+	 * then every event carrying it sends the items, so a dropped or rejected event never
+	 * leaves the server with only the hash.
+	 */
+	public synchronized void markSent(String hash) {
+		sent.put(hash, Boolean.TRUE);
+	}
+
+	/**
+	 * Makes the next event carrying this hash send the snapshot in full, e.g. because the
+	 * server reported it missing
+	 */
+	public synchronized void forget(String hash) {
+		sent.remove(hash);
+	}
+
+	/**
+	 * Drops all snapshots, e.g. on logout, as the next account has its own containers
+	 */
+	public void reset() {
+		snapshots.clear();
+		synchronized (this) {
+			sent.clear();
+		}
+	}
+
+	private Snapshot build(ItemContainer container) {
+		List<Map<String, Object>> items = new ArrayList<>();
+		long hash = 0xcbf29ce484222325L;
+
+		Item[] containerItems = container != null ? container.getItems() : null;
+		if (containerItems != null) {
+			for (int i = 0; i < containerItems.length; i++) {
+				Item item = containerItems[i];
+
+				// Skip empty slots
+				if (item.getId() <= 0 || item.getQuantity() <= 0) continue;
+
+				hash = mix(mix(mix(hash, i), item.getId()), item.getQuantity());
+
+				ItemInfoCache.ItemInfo info = itemInfoCache.get(item.getId());
+				Map<String, Object> itemData = new HashMap<>();
+				itemData.put("id", item.getId());
+				itemData.put("quantity", item.getQuantity());
+				itemData.put("gePrice", info.getGePrice());
+				itemData.put("slot", i);
+				itemData.put("name", info.getName());
+				items.add(Collections.unmodifiableMap(itemData));
+			}
+		}
+
+		return new Snapshot(String.format("%016x", hash), Collections.unmodifiableList(items));
+	}
+
+	/** FNV-1a over the four bytes of a value */
+	private static long mix(long hash, int value) {
+		for (int shift = 0; shift < 32; shift += 8) {
+			hash ^= (value >>> shift) & 0xff;
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+}
@@ -1,7 +1,9 @@
 package com.revalclan.util;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.revalclan.notifiers.MetadataBlock;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
@@ -43,6 +45,12 @@ public class EventFilterManager{
 		// Chat filter settings
 		@Getter private List<String> chatPatterns = new ArrayList<>(); // Empty by default = no patterns, all messages pass
 		
+		// Metadata blocks per event type, overriding the notifier's own profile
+		@Getter private Map<String, Set<MetadataBlock>> metadataProfiles = new HashMap<>();
+		
+		// Webhook ingest endpoints, sharded by account. Empty = the default webhook URL
+		@Getter private List<String> ingestEndpoints = new ArrayList<>();
+		
 		// Event toggles
 		@Getter private boolean lootEnabled = true;
 		@Getter private boolean petEnabled = true;
@@ -103,8 +111,9 @@ public class EventFilterManager{
 	
 	/**
 	 * Fetch filters asynchronously
+	 * @param onUpdated run on the HTTP thread once new filters are in place
 	 */
-	public void fetchFiltersAsync() {
+	public void fetchFiltersAsync(Runnable onUpdated) {
 		Request request = new Request.Builder()
 			.url(FILTERS_URL)
 			.get()
@@ -131,6 +140,7 @@ public class EventFilterManager{
 					parseFilters(json);
 					
 					log.info("✓ Successfully fetched event filters from API");
+					onUpdated.run();
 				} catch (IOException e) {
 					log.error("Failed to parse event filters response: {}", e.getMessage());
 				} catch (Exception e) {
@@ -205,6 +215,38 @@ public class EventFilterManager{
 				}
 			}
 			
+			// Parse metadata profiles, e.g. "EMOTE": ["world", "location"]
+			if (json.has("metadata")) {
+				JsonObject metadata = json.getAsJsonObject("metadata");
+				
+				for (Map.Entry<String, JsonElement> profile : metadata.entrySet()) {
+					if (!profile.getValue().isJsonArray()) continue;
+					
+					Set<MetadataBlock> blocks = EnumSet.noneOf(MetadataBlock.class);
+					profile.getValue().getAsJsonArray().forEach(key -> {
+						MetadataBlock block = MetadataBlock.fromKey(key.getAsString());
+						if (block != null) blocks.add(block);
+					});
+					newFilters.metadataProfiles.put(profile.getKey(), blocks);
+				}
+			}
+			
+			// Parse ingest endpoints, keeping only valid HTTPS URLs
+			if (json.has("ingest")) {
+				JsonObject ingest = json.getAsJsonObject("ingest");
+				
+				if (ingest.has("endpoints") && ingest.get("endpoints").isJsonArray()) {
+					ingest.getAsJsonArray("endpoints").forEach(endpoint -> {
+						HttpUrl url = HttpUrl.parse(endpoint.getAsString());
+						if (url != null && url.isHttps()) {
+							newFilters.ingestEndpoints.add(url.toString());
+						} else {
+							log.warn("Ignoring invalid ingest endpoint: {}", endpoint);
+						}
+					});
+				}
+			}
+			
 			// Parse event toggles
 			if (json.has("enabled")) {
 				JsonObject enabled = json.getAsJsonObject("enabled");
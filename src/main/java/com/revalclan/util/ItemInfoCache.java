@@ -0,0 +1,114 @@
+package com.revalclan.util;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.ItemComposition;
+import net.runelite.client.game.ItemManager;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared cache of the item details events report: name, GE price, high alchemy value,
+ * tradeability and canonical id. Saves the composition and price lookups notifiers
+ * would otherwise repeat for every item of every event.
+ * <p>
+ * Direct-mapped on the item id, so the size is bounded by {@link #SLOTS} without boxing
+ * or eviction bookkeeping; two ids sharing a slot simply replace each other. Prices are
+ * refreshed lazily once every {@link #PRICE_REFRESH_MS}. Client thread only, like the
+ * {@link ItemManager} lookups behind it.
+ */
+@Slf4j
+@Singleton
+public class ItemInfoCache {
+	private static final int SLOTS = 4096;
+	private static final long PRICE_REFRESH_MS = 30 * 60 * 1000;
+
+	@Getter
+	public static class ItemInfo {
+		private final int id;
+		private final String name;
+		private final int gePrice;
+		private final int haValue;
+		private final boolean tradeable;
+		/** The unnoted, non-placeholder item id */
+		private final int canonicalId;
+
+		/** Price refresh period the GE price was looked up in */
+		private final long pricePeriod;
+
+		ItemInfo(int id, String name, int gePrice, int haValue, boolean tradeable, int canonicalId, long pricePeriod) {
+			this.id = id;
+			this.name = name;
+			this.gePrice = gePrice;
+			this.haValue = haValue;
+			this.tradeable = tradeable;
+			this.canonicalId = canonicalId;
+			this.pricePeriod = pricePeriod;
+		}
+
+		ItemInfo withPrice(int gePrice, long pricePeriod) {
+			return new ItemInfo(id, name, gePrice, haValue, tradeable, canonicalId, pricePeriod);
+		}
+	}
+
+	@Inject private ItemManager itemManager;
+
+	private final ItemInfo[] slots = new ItemInfo[SLOTS];
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong priceRefreshes = new AtomicLong();
+
+	/**
+	 * @return the item's details; an item whose composition can't be loaded is reported
+	 *         as "Unknown" and not cached
+	 */
+	public ItemInfo get(int itemId) {
+		long pricePeriod = System.currentTimeMillis() / PRICE_REFRESH_MS;
+		int slot = itemId & (SLOTS - 1);
+
+		ItemInfo info = slots[slot];
+		if (info != null && info.id == itemId) {
+			hits.incrementAndGet();
+			if (info.pricePeriod != pricePeriod) {
+				priceRefreshes.incrementAndGet();
+				info = info.withPrice(itemManager.getItemPrice(itemId), pricePeriod);
+				slots[slot] = info;
+			}
+			return info;
+		}
+
+		misses.incrementAndGet();
+		int gePrice = itemManager.getItemPrice(itemId);
+		try {
+			ItemComposition comp = itemManager.getItemComposition(itemId);
+			if (comp == null) {
+				return new ItemInfo(itemId, "Unknown", gePrice, 0, false, itemId, pricePeriod);
+			}
+			info = new ItemInfo(itemId, comp.getName(), gePrice, comp.getPrice(), comp.isTradeable(),
+				itemManager.canonicalize(itemId), pricePeriod);
+		} catch (Exception e) {
+			log.debug("Could not load item composition for {}", itemId, e);
+			return new ItemInfo(itemId, "Unknown", gePrice, 0, false, itemId, pricePeriod);
+		}
+
+		slots[slot] = info;
+		return info;
+	}
+
+	public String getName(int itemId) {
+		return get(itemId).getName();
+	}
+
+	/**
+	 * @return hit, miss and price refresh counts
+	 */
+	public String describeStats() {
+		long hitCount = hits.get();
+		long total = hitCount + misses.get();
+		return String.format("hits=%d, misses=%d, hitRate=%.1f%%, priceRefreshes=%d",
+			hitCount, misses.get(), total > 0 ? 100.0 * hitCount / total : 0.0, priceRefreshes.get());
+	}
+}
@@ -3,7 +3,6 @@ package com.revalclan.util;
 import net.runelite.api.Client;
 import net.runelite.api.gameval.InterfaceID;
 import net.runelite.api.widgets.Widget;
-import net.runelite.client.util.Text;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -68,13 +67,13 @@ public final class RaidParty {
 		for (int i = 0; i < maxSize; i++) {
 			String name = client.getVarcStrValue(initialVarcId + i);
 			if (name == null || name.isEmpty()) continue;
-			names.add(name.replace('\u00A0', ' '));
+			names.add(TextNormalizer.normalize(name, TextNormalizer.NBSP_AS_SPACE));
 		}
 		return names;
 	}
 
 	private static String sanitize(String str) {
 		if (str == null || str.isEmpty()) return "";
-		return Text.removeTags(str).replace('\u00A0', ' ').trim();
+		return TextNormalizer.normalize(str, TextNormalizer.WIDGET_TEXT);
 	}
 }
@@ -16,8 +16,8 @@ import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.util.Base64;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledExecutorService;
 
@@ -27,13 +27,22 @@ public class ScreenshotService {
 	private static final float JPEG_QUALITY = 0.92f;
 	private static final int MAX_WIDTH = 1600;
 
+	/** Downscaled screenshots are re-encoded at this quality and never narrower than MIN_WIDTH */
+	private static final float DOWNSCALED_JPEG_QUALITY = 0.8f;
+	private static final int MIN_WIDTH = 480;
+
 	@Inject private DrawManager drawManager;
 	@Inject private Client client;
 	@Inject private ClientThread clientThread;
 	@Inject private ScheduledExecutorService executor;
 
-	public CompletableFuture<String> captureScreenshot() {
-		CompletableFuture<String> result = new CompletableFuture<>();
+	/**
+	 * Captures the next game frame with the chat hidden.
+	 *
+	 * @return the JPEG bytes, or null if the capture failed
+	 */
+	public CompletableFuture<byte[]> captureScreenshot() {
+		CompletableFuture<byte[]> result = new CompletableFuture<>();
 
 		clientThread.invoke(() -> {
 			Widget chat = client.getWidget(InterfaceID.Chatbox.CHATAREA);
@@ -62,7 +71,7 @@ public class ScreenshotService {
 					try {
 						BufferedImage screenshot = toBufferedImage(image);
 						screenshot = resizeIfNeeded(screenshot);
-						result.complete(compressAndEncode(screenshot));
+						result.complete(compress(screenshot, JPEG_QUALITY));
 					} catch (Exception e) {
 						log.error("Error processing screenshot", e);
 						result.complete(null);
@@ -76,6 +85,26 @@ public class ScreenshotService {
 		return result;
 	}
 
+	/**
+	 * Re-encodes a captured screenshot at half the width and a lower quality, for
+	 * payloads over their size budget. Runs on the caller's thread.
+	 *
+	 * @return the smaller JPEG, or null if it is already at the minimum width or can't
+	 *         be decoded
+	 */
+	public byte[] downscale(byte[] jpeg) {
+		try {
+			BufferedImage image = ImageIO.read(new ByteArrayInputStream(jpeg));
+			if (image == null || image.getWidth() <= MIN_WIDTH) {
+				return null;
+			}
+			return compress(resize(image, Math.max(MIN_WIDTH, image.getWidth() / 2)), DOWNSCALED_JPEG_QUALITY);
+		} catch (Exception e) {
+			log.warn("Could not downscale screenshot", e);
+			return null;
+		}
+	}
+
 	/**
 	 * Converts an Image to a BufferedImage if it isn't one already.
 	 */
@@ -99,28 +128,31 @@ public class ScreenshotService {
 		if (image.getWidth() <= MAX_WIDTH) {
 			return image;
 		}
+		return resize(image, MAX_WIDTH);
+	}
 
-		double scale = (double) MAX_WIDTH / image.getWidth();
+	private BufferedImage resize(BufferedImage image, int width) {
+		double scale = (double) width / image.getWidth();
 		int newHeight = (int) (image.getHeight() * scale);
 
-		BufferedImage resized = new BufferedImage(MAX_WIDTH, newHeight, BufferedImage.TYPE_INT_RGB);
+		BufferedImage resized = new BufferedImage(width, newHeight, BufferedImage.TYPE_INT_RGB);
 		Graphics2D g = resized.createGraphics();
 		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
-		g.drawImage(image, 0, 0, MAX_WIDTH, newHeight, null);
+		g.drawImage(image, 0, 0, width, newHeight, null);
 		g.dispose();
 		return resized;
 	}
 
 	/**
-	 * Compresses the image as JPEG and returns a base64-encoded string.
+	 * Compresses the image as JPEG. The bytes are uploaded as-is, without base64.
 	 */
-	private String compressAndEncode(BufferedImage image) throws Exception {
+	private byte[] compress(BufferedImage image, float quality) throws Exception {
 		ByteArrayOutputStream baos = new ByteArrayOutputStream(65536);
 
 		ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
 		ImageWriteParam param = writer.getDefaultWriteParam();
 		param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
-		param.setCompressionQuality(JPEG_QUALITY);
+		param.setCompressionQuality(quality);
 
 		try (ImageOutputStream ios = ImageIO.createImageOutputStream(baos)) {
 			writer.setOutput(ios);
@@ -132,6 +164,6 @@ public class ScreenshotService {
 		byte[] bytes = baos.toByteArray();
 		log.debug("Screenshot captured: {}x{}, {} KB", image.getWidth(), image.getHeight(), bytes.length / 1024);
 
-		return Base64.getEncoder().encodeToString(bytes);
+		return bytes;
 	}
 }
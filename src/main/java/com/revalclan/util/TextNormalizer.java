@@ -0,0 +1,279 @@
+package com.revalclan.util;
+
+/**
+ * Single-pass cleanup of chat, widget and clan text. Each flag reproduces one of the
+ * regex and replace chains it replaces exactly; set together, they're applied in one
+ * scan into a reusable builder instead of one intermediate string per step.
+ * <p>
+ * At most one of {@link #STRIP_COLOR_TAGS}, {@link #STRIP_HTML_TAGS} and
+ * {@link #STRIP_CLIENT_TAGS} may be set.
+ */
+public final class TextNormalizer {
+	/** {@code <col=xxxxxx>} removed, then {@code </col>}; other tags are kept */
+	public static final int STRIP_COLOR_TAGS = 1;
+	/** Every {@code <[^>]+>} removed, as by the equivalent regex */
+	public static final int STRIP_HTML_TAGS = 1 << 1;
+	/** Tags removed like RuneLite's {@code Text.removeTags}: from {@code <} to {@code >}, and any stray {@code >} */
+	public static final int STRIP_CLIENT_TAGS = 1 << 2;
+	/** {@code <br>} becomes a space, before any tag is stripped */
+	public static final int BR_AS_SPACE = 1 << 3;
+	/** Non-breaking spaces become spaces */
+	public static final int NBSP_AS_SPACE = 1 << 4;
+	/**
+	 * Leading symbols (chat icons) removed, then control characters, general punctuation,
+	 * currency symbols, arrows, miscellaneous symbols and dingbats wherever they appear
+	 */
+	public static final int STRIP_NAME_SYMBOLS = 1 << 5;
+	/** Leading and trailing characters up to {@code ' '} removed, as by {@link String#trim()} */
+	public static final int TRIM = 1 << 6;
+
+	/** A system chat message as reported by the chat notifier */
+	public static final int CHAT_MESSAGE = BR_AS_SPACE | STRIP_HTML_TAGS | TRIM;
+	/** A widget's text or name */
+	public static final int WIDGET_TEXT = STRIP_CLIENT_TAGS | NBSP_AS_SPACE | TRIM;
+	/** A player name from a clan broadcast, for comparing against the local player */
+	public static final int CLAN_USERNAME = STRIP_NAME_SYMBOLS | TRIM;
+
+	private static final byte WORD = 1;
+	private static final byte SPACE = 1 << 1;
+	private static final byte NAME_SYMBOL = 1 << 2;
+
+	/** Character classes of every UTF-16 code unit */
+	private static final byte[] CLASSES = new byte[Character.MAX_VALUE + 1];
+
+	static {
+		for (char c = 'a'; c <= 'z'; c++) CLASSES[c] |= WORD;
+		for (char c = 'A'; c <= 'Z'; c++) CLASSES[c] |= WORD;
+		for (char c = '0'; c <= '9'; c++) CLASSES[c] |= WORD;
+		CLASSES['_'] |= WORD;
+		for (char c : new char[]{' ', '\t', '\n', '\u000B', '\f', '\r'}) CLASSES[c] |= SPACE;
+
+		int[][] symbols = {
+			{0x0000, 0x001F}, {0x007F, 0x009F}, {0x2000, 0x206F}, {0x20A0, 0x20CF},
+			{0x2190, 0x21FF}, {0x2600, 0x26FF}, {0x2700, 0x27BF}
+		};
+		for (int[] range : symbols) {
+			for (int c = range[0]; c <= range[1]; c++) CLASSES[c] |= NAME_SYMBOL;
+		}
+	}
+
+	private static final String BR = "<br>";
+	private static final String COL_OPEN = "<col=";
+	private static final String COL_CLOSE = "</col>";
+
+	private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+	private TextNormalizer() {}
+
+	/**
+	 * @return the normalized text; the text itself, without copying, when nothing changes
+	 */
+	public static String normalize(String text, int flags) {
+		if (text == null) return null;
+
+		StringBuilder out = BUILDER.get();
+		out.setLength(0);
+		return normalizeInto(text, flags, out) ? out.toString() : text;
+	}
+
+	/**
+	 * Appends the normalized text to {@code out}
+	 */
+	public static void normalize(CharSequence text, int flags, StringBuilder out) {
+		if (!normalizeInto(text, flags, out)) {
+			out.append(text);
+		}
+	}
+
+	/**
+	 * Copies unchanged runs of the text in bulk, and nothing at all if no character changes
+	 *
+	 * @return false if the text is already normalized, in which case nothing was appended
+	 */
+	private static boolean normalizeInto(CharSequence text, int flags, StringBuilder out) {
+		int tagModes = flags & (STRIP_COLOR_TAGS | STRIP_HTML_TAGS | STRIP_CLIENT_TAGS);
+		if ((tagModes & (tagModes - 1)) != 0) {
+			throw new IllegalArgumentException("More than one tag mode: " + flags);
+		}
+
+		boolean colorTags = tagModes == STRIP_COLOR_TAGS;
+		boolean clientTags = tagModes == STRIP_CLIENT_TAGS;
+		boolean br = (flags & BR_AS_SPACE) != 0;
+		boolean nbsp = (flags & NBSP_AS_SPACE) != 0;
+		boolean nameSymbols = (flags & STRIP_NAME_SYMBOLS) != 0;
+		boolean leading = nameSymbols;
+		boolean changed = false;
+
+		int start = out.length();
+		// Output before this index can't be part of a </col> any more
+		int floor = start;
+		// Start of the text not yet copied to the output
+		int run = 0;
+		int n = text.length();
+		int i = 0;
+		while (i < n) {
+			char c = text.charAt(i);
+			char mapped = c;
+			int next = i + 1;
+			boolean drop = false;
+			// Changed by a step that runs after the tags are stripped
+			boolean late = false;
+
+			if (c == '<' && br && startsWith(text, i, BR)) {
+				mapped = ' ';
+				next = i + BR.length();
+			} else if (clientTags && (c == '<' || c == '>')) {
+				next = c == '<' ? clientTagEnd(text, i, br) : next;
+				drop = true;
+			} else if (c == '<' && tagModes != 0) {
+				int end = colorTags ? colorTagEnd(text, i) : htmlTagEnd(text, i, br);
+				if (end > 0) {
+					next = end;
+					drop = true;
+				}
+			}
+
+			if (!drop) {
+				if (nbsp && mapped == '\u00A0') {
+					mapped = ' ';
+					late = true;
+				}
+
+				if (nameSymbols) {
+					byte cls = CLASSES[mapped];
+					if (leading && (cls & (WORD | SPACE)) == 0) {
+						drop = true;
+					} else {
+						leading = false;
+						drop = (cls & NAME_SYMBOL) != 0;
+					}
+					late |= drop;
+				}
+			}
+
+			if (drop || mapped != c || next != i + 1) {
+				out.append(text, run, i);
+				if (!drop) out.append(mapped);
+				if (late) floor = out.length();
+				run = next;
+				changed = true;
+			} else if (c == '>' && colorTags && endsWithColorClose(out, floor, text, run, next)) {
+				// Closing tags are removed after the opening ones, so they can be made up of
+				// text on both sides of a removed opening tag
+				int pending = next - run;
+				if (pending >= COL_CLOSE.length()) {
+					out.append(text, run, next - COL_CLOSE.length());
+				} else {
+					out.setLength(out.length() - (COL_CLOSE.length() - pending));
+				}
+				floor = out.length();
+				run = next;
+				changed = true;
+			}
+			i = next;
+		}
+
+		boolean trim = (flags & TRIM) != 0;
+		if (!changed && !(trim && n > 0 && (text.charAt(0) <= ' ' || text.charAt(n - 1) <= ' '))) {
+			return false;
+		}
+
+		out.append(text, run, n);
+		if (trim) {
+			trim(out, start);
+		}
+		return true;
+	}
+
+	/**
+	 * @return whether the output followed by {@code text[run, end)} ends in {@code </col>},
+	 *         counting only output from {@code floor} on
+	 */
+	private static boolean endsWithColorClose(StringBuilder out, int floor, CharSequence text, int run, int end) {
+		int pending = end - run;
+		if (out.length() - floor + pending < COL_CLOSE.length()) return false;
+
+		for (int k = 1; k <= COL_CLOSE.length(); k++) {
+			char c = k <= pending ? text.charAt(end - k) : out.charAt(out.length() - (k - pending));
+			if (c != COL_CLOSE.charAt(COL_CLOSE.length() - k)) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return the index just past the {@code <[^>]+>} tag starting at {@code start}, or
+	 *         -1 if there is none there. With {@code br}, each {@code <br>} inside counts
+	 *         as the space it becomes.
+	 */
+	private static int htmlTagEnd(CharSequence text, int start, boolean br) {
+		int inside = 0;
+		int i = start + 1;
+		while (i < text.length()) {
+			if (br && startsWith(text, i, BR)) {
+				i += BR.length();
+			} else if (text.charAt(i) == '>') {
+				return inside > 0 ? i + 1 : -1;
+			} else {
+				i++;
+			}
+			inside++;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the index just past the {@code >} closing the tag starting at {@code start},
+	 *         or the text's length if it's never closed. With {@code br}, a {@code <br>}
+	 *         inside doesn't close it, as it has become a space by the time tags are removed.
+	 */
+	private static int clientTagEnd(CharSequence text, int start, boolean br) {
+		int i = start + 1;
+		while (i < text.length()) {
+			if (br && startsWith(text, i, BR)) {
+				i += BR.length();
+			} else if (text.charAt(i++) == '>') {
+				break;
+			}
+		}
+		return i;
+	}
+
+	/**
+	 * @return the index just past the {@code <col=[0-9a-fA-F]+>} tag starting at
+	 *         {@code start}, or -1 if there is none there
+	 */
+	private static int colorTagEnd(CharSequence text, int start) {
+		if (!startsWith(text, start, COL_OPEN)) {
+			return -1;
+		}
+
+		int i = start + COL_OPEN.length();
+		int digits = i;
+		while (i < text.length() && isHexDigit(text.charAt(i))) {
+			i++;
+		}
+		return i > digits && i < text.length() && text.charAt(i) == '>' ? i + 1 : -1;
+	}
+
+	private static boolean isHexDigit(char c) {
+		return c >= '0' && c <= '9' || c >= 'a' && c <= 'f' || c >= 'A' && c <= 'F';
+	}
+
+	private static boolean startsWith(CharSequence text, int offset, String prefix) {
+		if (offset + prefix.length() > text.length()) return false;
+		for (int i = 0; i < prefix.length(); i++) {
+			if (text.charAt(offset + i) != prefix.charAt(i)) return false;
+		}
+		return true;
+	}
+
+	private static void trim(StringBuilder out, int start) {
+		int end = out.length();
+		while (end > start && out.charAt(end - 1) <= ' ') end--;
+		out.setLength(end);
+
+		int first = start;
+		while (first < end && out.charAt(first) <= ' ') first++;
+		if (first > start) out.delete(start, first);
+	}
+}
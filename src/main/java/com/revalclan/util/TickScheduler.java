@@ -0,0 +1,168 @@
+package com.revalclan.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Singleton;
+
+/**
+ * Hierarchical timer wheel driven by game ticks, for the countdowns notifiers wait out:
+ * correlation windows, timeouts and delayed reads. Components schedule a callback some
+ * ticks ahead and cancel it when the state it waits on is resolved or reset, so an idle
+ * notifier costs nothing per tick.
+ * <p>
+ * Three levels of {@link #SLOTS} slots cover 1, 64 and 4096 ticks each; a timer sits in
+ * the finest level its deadline fits and moves down a level as the wheel reaches its
+ * slot. Deadlines beyond the last level wait in an overflow list. Scheduling, cancelling
+ * and a tick without due timers are all constant time.
+ * <p>
+ * Client thread only.
+ */
+@Slf4j
+@Singleton
+public class TickScheduler {
+	private static final int SLOT_BITS = 6;
+	private static final int SLOTS = 1 << SLOT_BITS;
+	private static final int LEVELS = 3;
+
+	/** A scheduled callback; cancelling a timer that already ran or was cancelled does nothing */
+	public static class Timer {
+		private final Runnable task;
+		private long deadline;
+		private Timer prev;
+		private Timer next;
+
+		private Timer(Runnable task) {
+			this.task = task;
+		}
+
+		/**
+		 * @return true until the callback has run or the timer was cancelled
+		 */
+		public boolean isPending() {
+			return next != null;
+		}
+
+		public void cancel() {
+			unlink();
+		}
+
+		private void unlink() {
+			if (next == null) return;
+			prev.next = next;
+			next.prev = prev;
+			prev = null;
+			next = null;
+		}
+	}
+
+	/** Sentinel per slot; an empty slot links to itself */
+	private final Timer[][] wheel = new Timer[LEVELS][SLOTS];
+	private final Timer overflow = sentinel();
+
+	private long tick = 0;
+
+	public TickScheduler() {
+		for (Timer[] level : wheel) {
+			for (int i = 0; i < SLOTS; i++) {
+				level[i] = sentinel();
+			}
+		}
+	}
+
+	/**
+	 * Runs a callback on the given number of ticks from now; zero or less means the next tick
+	 */
+	public Timer schedule(int ticks, Runnable task) {
+		Timer timer = new Timer(task);
+		timer.deadline = tick + Math.max(ticks, 1);
+		place(timer);
+		return timer;
+	}
+
+	/**
+	 * @return ticks elapsed since the plugin started
+	 */
+	public long getTick() {
+		return tick;
+	}
+
+	/**
+	 * Advances the wheel by one tick and runs the callbacks that are due, in no particular
+	 * order. A callback that throws is logged and doesn't affect the others.
+	 */
+	public void tick() {
+		tick++;
+
+		// Move timers of the slots that were just reached down a level, coarsest first
+		for (int level = LEVELS - 1; level > 0; level--) {
+			int shift = level * SLOT_BITS;
+			if ((tick & ((1L << shift) - 1)) != 0) continue;
+
+			if (level == LEVELS - 1) {
+				cascade(overflow);
+			}
+			cascade(wheel[level][(int) (tick >>> shift) & (SLOTS - 1)]);
+		}
+
+		Timer slot = wheel[0][(int) tick & (SLOTS - 1)];
+		while (slot.next != slot) {
+			Timer timer = slot.next;
+			timer.unlink();
+			try {
+				timer.task.run();
+			} catch (Exception e) {
+				log.warn("Scheduled tick callback failed", e);
+			}
+		}
+	}
+
+	/**
+	 * Cancels every timer, e.g. on shutdown
+	 */
+	public void clear() {
+		for (Timer[] level : wheel) {
+			for (Timer slot : level) {
+				while (slot.next != slot) slot.next.unlink();
+			}
+		}
+		while (overflow.next != overflow) overflow.next.unlink();
+	}
+
+	private void cascade(Timer slot) {
+		Timer timer = slot.next;
+		slot.next = slot;
+		slot.prev = slot;
+
+		while (timer != slot) {
+			Timer next = timer.next;
+			timer.prev = null;
+			timer.next = null;
+			place(timer);
+			timer = next;
+		}
+	}
+
+	private void place(Timer timer) {
+		long delta = timer.deadline - tick;
+		Timer slot = overflow;
+		for (int level = 0; level < LEVELS; level++) {
+			int shift = level * SLOT_BITS;
+			if (delta < (1L << (shift + SLOT_BITS))) {
+				slot = wheel[level][(int) (timer.deadline >>> shift) & (SLOTS - 1)];
+				break;
+			}
+		}
+
+		timer.prev = slot.prev;
+		timer.next = slot;
+		slot.prev.next = timer;
+		slot.prev = timer;
+	}
+
+	private static Timer sentinel() {
+		Timer sentinel = new Timer(null);
+		sentinel.prev = sentinel;
+		sentinel.next = sentinel;
+		return sentinel;
+	}
+}
@@ -0,0 +1,120 @@
+package com.revalclan.util;
+
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.events.VarbitChanged;
+
+import javax.inject.Singleton;
+import java.util.Arrays;
+
+/**
+ * Dispatches varbit and varp changes to the components watching those IDs.
+ * {@link VarbitChanged} fires for every var the server touches, often hundreds per
+ * tick, and nearly all of them are of no interest. Each ID maps to a listener slot
+ * through a dense {@code int[]} table, so a change nobody watches costs one bounds
+ * check and one array read, without boxing or hashing.
+ * <p>
+ * Watch IDs at startup; dispatch happens on the client thread.
+ */
+@Slf4j
+@Singleton
+public class VarDispatcher {
+	/** Called with the ID of the varbit or varp that changed and its new value */
+	public interface VarListener {
+		void onVarChanged(int id, int value);
+	}
+
+	private static final int[] NONE = new int[0];
+	private static final VarListener[][] NO_LISTENERS = {null};
+
+	/** Listener slot of each varbit and varp ID; 0 for IDs no one watches */
+	private volatile int[] varbitSlots = NONE;
+	private volatile int[] varpSlots = NONE;
+
+	/** Listeners per slot; slot 0 is unused */
+	private volatile VarListener[][] listeners = NO_LISTENERS;
+
+	public void watchVarbit(int varbitId, VarListener listener) {
+		watch(true, varbitId, listener);
+	}
+
+	public void watchVarp(int varpId, VarListener listener) {
+		watch(false, varpId, listener);
+	}
+
+	public void watchVarbits(Iterable<Integer> varbitIds, VarListener listener) {
+		for (int id : varbitIds) {
+			watchVarbit(id, listener);
+		}
+	}
+
+	public void watchVarps(int[] varpIds, VarListener listener) {
+		for (int id : varpIds) {
+			watchVarp(id, listener);
+		}
+	}
+
+	public void onVarbitChanged(VarbitChanged event) {
+		int varbitId = event.getVarbitId();
+		if (varbitId >= 0) {
+			dispatch(varbitSlots, varbitId, event.getValue());
+		} else {
+			dispatch(varpSlots, event.getVarpId(), event.getValue());
+		}
+	}
+
+	/**
+	 * Stops dispatching to every listener, e.g. on shutdown
+	 */
+	public synchronized void clear() {
+		varbitSlots = NONE;
+		varpSlots = NONE;
+		listeners = NO_LISTENERS;
+	}
+
+	private void dispatch(int[] slots, int id, int value) {
+		if (id < 0 || id >= slots.length) return;
+		int slot = slots[id];
+		if (slot == 0) return;
+
+		for (VarListener listener : listeners[slot]) {
+			try {
+				listener.onVarChanged(id, value);
+			} catch (Exception e) {
+				log.warn("Var listener failed for var {}", id, e);
+			}
+		}
+	}
+
+	/**
+	 * Copy on write, as watching is rare and dispatch reads the tables without locking
+	 */
+	private synchronized void watch(boolean varbit, int id, VarListener listener) {
+		if (id < 0) {
+			throw new IllegalArgumentException("Invalid var ID: " + id);
+		}
+
+		int[] slots = varbit ? varbitSlots : varpSlots;
+		int[] updated = Arrays.copyOf(slots, Math.max(slots.length, id + 1));
+		VarListener[][] updatedListeners;
+		int slot = updated[id];
+		if (slot == 0) {
+			slot = listeners.length;
+			updatedListeners = Arrays.copyOf(listeners, slot + 1);
+			updatedListeners[slot] = new VarListener[]{listener};
+			updated[id] = slot;
+		} else {
+			updatedListeners = listeners.clone();
+			VarListener[] existing = updatedListeners[slot];
+			updatedListeners[slot] = Arrays.copyOf(existing, existing.length + 1);
+			updatedListeners[slot][existing.length] = listener;
+		}
+
+		// Publish the listeners before the table that points at them
+		listeners = updatedListeners;
+		if (varbit) {
+			varbitSlots = updated;
+		} else {
+			varpSlots = updated;
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package com.revalclan.util;
+
+import net.runelite.api.Client;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Arrays;
+
+/**
+ * Per-tick cache of varbit and varp values for the sync builders and notifiers that
+ * read the same vars, often many times over. Each var is read from the client at most
+ * once per tick into primitive arrays; a change reported through {@link VarDispatcher}
+ * marks it stale so the next read within the tick sees the new value.
+ * <p>
+ * A var is watched from its first read on. Client thread only.
+ */
+@Singleton
+public class VarSnapshot {
+	@Inject private Client client;
+	@Inject private VarDispatcher varDispatcher;
+
+	private final Table varbits = new Table();
+	private final Table varps = new Table();
+
+	private final VarDispatcher.VarListener varbitListener = (id, value) -> varbits.invalidate(id);
+	private final VarDispatcher.VarListener varpListener = (id, value) -> varps.invalidate(id);
+
+	/** Values read in an earlier generation are stale; 0 is never current */
+	private long generation = 1;
+
+	public int getVarbit(int varbitId) {
+		int slot = varbits.slotOf(varbitId);
+		if (slot == 0) {
+			slot = varbits.add(varbitId);
+			varDispatcher.watchVarbit(varbitId, varbitListener);
+		}
+
+		if (varbits.readAt[slot] != generation) {
+			varbits.values[slot] = client.getVarbitValue(varbitId);
+			varbits.readAt[slot] = generation;
+		}
+		return varbits.values[slot];
+	}
+
+	public int getVarp(int varpId) {
+		int slot = varps.slotOf(varpId);
+		if (slot == 0) {
+			slot = varps.add(varpId);
+			varDispatcher.watchVarp(varpId, varpListener);
+		}
+
+		if (varps.readAt[slot] != generation) {
+			varps.values[slot] = client.getVarpValue(varpId);
+			varps.readAt[slot] = generation;
+		}
+		return varps.values[slot];
+	}
+
+	/**
+	 * Marks every value stale; called each tick and when the game state changes, as
+	 * vars can be reset without a change event on logout or world hop
+	 */
+	public void invalidateAll() {
+		generation++;
+	}
+
+	/**
+	 * Forgets every var, e.g. on shutdown, together with {@link VarDispatcher#clear()}
+	 */
+	public void clear() {
+		varbits.clear();
+		varps.clear();
+		generation++;
+	}
+
+	/** Slot per var ID and the value and read generation per slot; slot 0 is unused */
+	private static final class Table {
+		private int[] slots = new int[0];
+		private int[] values = new int[16];
+		private long[] readAt = new long[16];
+		private int size = 1;
+
+		int slotOf(int id) {
+			return id >= 0 && id < slots.length ? slots[id] : 0;
+		}
+
+		int add(int id) {
+			if (id < 0) {
+				throw new IllegalArgumentException("Invalid var ID: " + id);
+			}
+			if (id >= slots.length) {
+				slots = Arrays.copyOf(slots, Math.max(id + 1, slots.length * 2));
+			}
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+				readAt = Arrays.copyOf(readAt, size * 2);
+			}
+
+			slots[id] = size;
+			return size++;
+		}
+
+		void invalidate(int id) {
+			int slot = slotOf(id);
+			if (slot != 0) {
+				readAt[slot] = 0;
+			}
+		}
+
+		void clear() {
+			slots = new int[0];
+			Arrays.fill(readAt, 0);
+			size = 1;
+		}
+	}
+}
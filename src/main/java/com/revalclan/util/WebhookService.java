@@ -1,89 +1,875 @@
 package com.revalclan.util;
 
 import com.google.gson.Gson;
+import com.revalclan.RevalClanConfig;
+import com.revalclan.webhook.CircuitBreaker;
+import com.revalclan.webhook.CompressionController;
+import com.revalclan.webhook.DeliveryPolicy;
+import com.revalclan.webhook.EventPriority;
+import com.revalclan.webhook.PayloadBudget;
+import com.revalclan.webhook.IngestRing;
+import com.revalclan.webhook.PayloadDictionary;
+import com.revalclan.webhook.PayloadSnapshot;
+import com.revalclan.webhook.PriorityLane;
+import com.revalclan.webhook.StreamingJsonBody;
+import com.revalclan.webhook.SubmissionQueue;
+import com.revalclan.webhook.WebhookBatcher;
+import com.revalclan.webhook.WebhookExecutor;
+import com.revalclan.webhook.WebhookOutbox;
+import com.revalclan.webhook.WebhookTransport;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.zip.GZIPOutputStream;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Slf4j
 @Singleton
 public class WebhookService {
-	private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
-	private static final String WEBHOOK_URL = "https://api.revalosrs.ee/reval-webhook";
+	private static final MediaType JPEG = MediaType.parse("image/jpeg");
+	/** Overridable so soak runs can point at a local ingest server */
+	private static final String WEBHOOK_URL = System.getProperty("reval.webhook.url", "https://api.revalosrs.ee/reval-webhook");
+	private static final boolean WEBHOOK_URL_OVERRIDDEN = System.getProperty("reval.webhook.url") != null;
 	private static final String PLUGIN_VERSION = "2.17.1";
-	
+
+	/**
+	 * The server lists the dictionary versions it can decode in this response header.
+	 * Until it has advertised ours, every request goes out as plain gzip.
+	 */
+	private static final String ACCEPT_DICTIONARY_HEADER = "X-Reval-Accept-Dictionary";
+	private static final String DICTIONARY_HEADER = "X-Reval-Dictionary";
+	private static final String DICTIONARY_CONTENT_ENCODING = "x-reval-deflate-dict";
+	private static final int UNSUPPORTED_MEDIA_TYPE = 415;
+
+	/** Container snapshot hashes the server has no items for, comma separated */
+	private static final String MISSING_SNAPSHOTS_HEADER = "X-Reval-Missing-Snapshots";
+
+	/** Payload keys of the container snapshots events carry, each with a {@code <key>Hash} */
+	private static final List<String> SNAPSHOT_KEYS = List.of("inventory", "equipment");
+
+	/**
+	 * Batches that can't be sent while an endpoint's circuit is open wait here, up to
+	 * this many events. Beyond that the oldest are dropped from memory only: they are
+	 * still in the outbox and are replayed on the next start-up.
+	 */
+	private static final int MAX_PARKED_EVENTS = 1000;
+
+	/** Parked batches are released one at a time once the endpoint recovers */
+	private static final long PARKED_RELEASE_INTERVAL_MS = 200;
+
+	/** Events handled per drain run, so retries and lane hand-offs get a turn during bursts */
+	private static final int SUBMISSIONS_PER_DRAIN = 64;
+
+	private static final int WORKER_QUEUE_CAPACITY = 256;
+	/** A task the saturated worker turned away is offered again after this long */
+	private static final long WORKER_RETRY_MS = 50;
+	private static final long WORKER_DRAIN_TIMEOUT_MS = 2000;
+
+	/** Worker, queue, lane, delivery and compression metrics are logged at debug this often */
+	private static final long METRICS_LOG_INTERVAL_MINUTES = 5;
+
 	@Inject
-	private OkHttpClient httpClient;
-	
+	private WebhookTransport transport;
+
 	@Inject
 	private Gson gson;
 
+	@Inject
+	private WebhookOutbox outbox;
+
+	@Inject
+	private EventFilterManager filterManager;
+
+	@Inject
+	private ContainerSnapshotTracker containerSnapshots;
+
+	@Inject
+	private ScreenshotService screenshotService;
+
+	@Inject
+	private RevalClanConfig config;
+
+	@Inject
+	private ScheduledExecutorService scheduler;
+
+	private final Map<EventPriority, PriorityLane> lanes = new EnumMap<>(EventPriority.class);
+	private final CompressionController compression = new CompressionController();
+
+	/** Events waiting for the worker; bounded, with a per-type overflow policy */
+	private volatile SubmissionQueue submissions;
+	private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+
+	private volatile PayloadDictionary dictionary;
+	private volatile boolean dictionaryAccepted = false;
+
+	/** Largest batch the server has advertised; 1 until it has */
+	private volatile int serverBatchLimit = 1;
+
+	private static class ParkedBatch {
+		final String url;
+		final List<WebhookBatcher.Entry> batch;
+
+		ParkedBatch(String url, List<WebhookBatcher.Entry> batch) {
+			this.url = url;
+			this.batch = batch;
+		}
+	}
+
+	private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+	private final Deque<ParkedBatch> parked = new ArrayDeque<>();
+	private int parkedEvents = 0;
+	private final AtomicBoolean releasingParked = new AtomicBoolean(false);
+
+	private final AtomicLong retries = new AtomicLong();
+	private final AtomicLong abandoned = new AtomicLong();
+	private final AtomicLong parkedDropped = new AtomicLong();
+	private final AtomicLong failovers = new AtomicLong();
+	/** Events and tasks that arrived while the service was stopped */
+	private final AtomicLong droppedStopped = new AtomicLong();
+
+	/** Rebuilt on the worker when the published endpoints change */
+	private IngestRing ring;
+	private List<String> ringSource;
+
+	/** Outbox hand-off, batching and request setup happen here, never on the client thread */
+	private volatile WebhookExecutor worker;
+
+	private ScheduledFuture<?> metricsTask;
+
+	public WebhookService() {
+		for (EventPriority priority : EventPriority.values()) {
+			lanes.put(priority, new PriorityLane(priority));
+		}
+	}
+
+	/**
+	 * Starts the background worker, opens the outbox and starts replaying events a
+	 * previous session failed to deliver
+	 */
+	public void startUp() {
+		submissions = new SubmissionQueue(config.webhookQueueCapacity());
+		drainScheduled.set(false);
+		worker = new WebhookExecutor("reval-webhook-worker", WORKER_QUEUE_CAPACITY);
+		if (dictionary == null) {
+			dictionary = PayloadDictionary.load(PayloadDictionary.CURRENT_VERSION);
+		}
+		outbox.start((id, json, screenshot) ->
+			submit(() -> post(List.of(new WebhookBatcher.Entry(id, json, screenshot)))));
+		metricsTask = scheduler.scheduleWithFixedDelay(this::logMetrics,
+			METRICS_LOG_INTERVAL_MINUTES, METRICS_LOG_INTERVAL_MINUTES, TimeUnit.MINUTES);
+	}
+
+	/**
+	 * Sends anything still batched, drains the worker and flushes the outbox to disk;
+	 * undelivered events are replayed on the next start-up
+	 */
+	public void shutDown() {
+		flush();
+
+		if (metricsTask != null) {
+			metricsTask.cancel(false);
+			metricsTask = null;
+		}
+		logMetrics();
+
+		WebhookExecutor current = worker;
+		worker = null;
+		if (current != null) {
+			current.shutdown(WORKER_DRAIN_TIMEOUT_MS);
+		}
+
+		SubmissionQueue queue = submissions;
+		submissions = null;
+		if (queue != null) {
+			int dropped = queue.clear();
+			if (dropped > 0) {
+				log.warn("{} queued webhook event(s) dropped on shutdown", dropped);
+			}
+		}
+
+		synchronized (parked) {
+			// Still in the outbox; replayed on the next start-up
+			parked.clear();
+			parkedEvents = 0;
+		}
+		releasingParked.set(false);
+
+		outbox.stop();
+	}
+
+	/**
+	 * Logs the metrics below at debug, every few minutes and once more on shut down.
+	 */
+	private void logMetrics() {
+		if (!log.isDebugEnabled()) return;
+
+		log.debug("Webhook worker: {}", describeWorkerMetrics());
+		log.debug("Webhook submissions: {}", describeSubmissionStats());
+		log.debug("Webhook lanes: {}", describeLaneStats());
+		log.debug("Webhook delivery: {}", describeDeliveryStats());
+		log.debug("Webhook compression: {}", describeCompressionStats());
+	}
+
+	/**
+	 * @return queue depth and processing-time metrics for the background worker
+	 */
+	public String describeWorkerMetrics() {
+		WebhookExecutor current = worker;
+		return current != null ? current.describeMetrics() : "stopped";
+	}
+
+	/**
+	 * @return size of the submission queue and what it shed or merged, per event type
+	 */
+	public String describeSubmissionStats() {
+		SubmissionQueue queue = submissions;
+		return queue != null ? queue.describe() : "stopped";
+	}
+
+	/**
+	 * Applies a changed queue capacity from the plugin config
+	 */
+	public void onConfigChanged() {
+		SubmissionQueue queue = submissions;
+		if (queue != null) {
+			queue.setCapacity(config.webhookQueueCapacity());
+		}
+	}
+
+	/**
+	 * @return compression ratio and CPU time per event type
+	 */
+	public String describeCompressionStats() {
+		return compression.describeStats();
+	}
+
+	/**
+	 * @return circuit state per endpoint, parked events and retry counters
+	 */
+	public String describeDeliveryStats() {
+		StringBuilder circuits = new StringBuilder();
+		breakers.forEach((url, breaker) -> circuits.append(url).append('=').append(breaker.getState()).append(' '));
+		int parkedCount;
+		synchronized (parked) {
+			parkedCount = parkedEvents;
+		}
+		return String.format("circuits=[%s], parked=%d, parkedDropped=%d, retries=%d, failovers=%d, abandoned=%d, droppedStopped=%d",
+			circuits.toString().trim(), parkedCount, parkedDropped.get(), retries.get(), failovers.get(), abandoned.get(),
+			droppedStopped.get());
+	}
+
+	/**
+	 * @return in-flight, waiting and dropped counts per priority lane
+	 */
+	public String describeLaneStats() {
+		StringBuilder stats = new StringBuilder();
+		for (PriorityLane lane : lanes.values()) {
+			if (stats.length() > 0) stats.append(", ");
+			stats.append(lane.describe());
+		}
+		return stats.toString();
+	}
+
+	/**
+	 * Advances each lane's batching window, sending open batches once they are old enough.
+	 * Must be called once per game tick.
+	 */
+	public void onGameTick() {
+		int configuredTicks = config.webhookBatchTicks();
+		for (PriorityLane lane : lanes.values()) {
+			List<WebhookBatcher.Entry> batch = lane.getBatcher().onTick(lane.getPriority().batchTicks(configuredTicks));
+			if (!batch.isEmpty()) {
+				submit(() -> post(batch));
+			}
+		}
+	}
+
+	/**
+	 * Sends the open batches immediately, e.g. when ticks stop on logout. Prepares
+	 * everything still on the submission queue first, so those events make it in too.
+	 */
+	public void flush() {
+		submit(() -> {
+			prepareQueued(Integer.MAX_VALUE);
+			for (PriorityLane lane : lanes.values()) {
+				List<WebhookBatcher.Entry> batch = lane.getBatcher().drain();
+				if (!batch.isEmpty()) {
+					post(batch);
+				}
+			}
+		});
+	}
+
 	/**
 	 * Sends player data to webhook asynchronously
 	 */
 	public void sendDataAsync(Map<String, Object> data) {
-		sendDataAsync(WEBHOOK_URL, data);
+		sendDataAsync(data, null);
+	}
+
+	/**
+	 * Sends player data with a JPEG screenshot, uploaded as a separate binary part.
+	 * The payload is frozen on the calling thread and put on the bounded submission
+	 * queue; everything else happens on the worker. Events sent while the service is
+	 * stopped are dropped.
+	 *
+	 * @param screenshot JPEG bytes, or null to send the data alone
+	 */
+	public void sendDataAsync(Map<String, Object> data, byte[] screenshot) {
+		Map<String, Object> snapshot;
+		try {
+			snapshot = PayloadSnapshot.freeze(data);
+		} catch (Exception e) {
+			log.error("Unexpected error preparing webhook", e);
+			return;
+		}
+
+		SubmissionQueue queue = submissions;
+		if (queue == null) {
+			droppedStopped.incrementAndGet();
+			log.debug("Webhook service stopped, dropped {} event", snapshot.get("eventType"));
+			return;
+		}
+
+		if (queue.offer(new SubmissionQueue.Submission(snapshot, screenshot))) {
+			scheduleDrain();
+		}
+	}
+
+	private void scheduleDrain() {
+		if (drainScheduled.compareAndSet(false, true)) {
+			submit(this::drainSubmissions);
+		}
 	}
 
 	/**
-	 * Sends player data to a specific webhook URL asynchronously
-	 * 
-	 * @param webhookUrl The webhook endpoint URL
-	 * @param data The player data to send
+	 * Prepares queued events on the worker, a bounded number per run
 	 */
-	private void sendDataAsync(String webhookUrl, Map<String, Object> data) {
-		if (webhookUrl == null || webhookUrl.trim().isEmpty()) {
+	private void drainSubmissions() {
+		prepareQueued(SUBMISSIONS_PER_DRAIN);
+
+		drainScheduled.set(false);
+		SubmissionQueue queue = submissions;
+		if (queue != null && !queue.isEmpty()) {
+			scheduleDrain();
+		}
+	}
+
+	private void prepareQueued(int max) {
+		SubmissionQueue queue = submissions;
+		if (queue == null) return;
+
+		for (int i = 0; i < max; i++) {
+			SubmissionQueue.Submission next = queue.poll();
+			if (next == null) break;
+			prepare(withRollup(next), next.screenshot);
+		}
+	}
+
+	/**
+	 * Stamps a coalesced event with how many identical ones were folded into it
+	 */
+	private static Map<String, Object> withRollup(SubmissionQueue.Submission submission) {
+		if (submission.getCoalescedCount() == 0) return submission.payload;
+
+		Map<String, Object> rolledUp = new LinkedHashMap<>(submission.payload);
+		rolledUp.put("coalescedCount", submission.getCoalescedCount());
+		rolledUp.put("lastEventTimestamp", submission.getLastEventTimestamp());
+		return Collections.unmodifiableMap(rolledUp);
+	}
+
+	/**
+	 * Fits a frozen payload to its byte budget, records it in the outbox and sends or
+	 * batches it in its priority lane. Runs on the worker. The payload is serialized
+	 * later, straight into the outbox segment and the request body.
+	 */
+	private void prepare(Map<String, Object> data, byte[] screenshot) {
+		PayloadBudget.Budgeted budgeted = PayloadBudget.apply(gson, data, screenshot, screenshotService::downscale);
+		if (!budgeted.getDegradations().isEmpty()) {
+			log.debug("{} payload over its byte budget, applied {}", data.get("eventType"), budgeted.getDegradations());
+			data = budgeted.getPayload();
+			screenshot = budgeted.getScreenshot();
+		}
+
+		WebhookBatcher.Entry entry = new WebhookBatcher.Entry(eventId(data), data, screenshot);
+		outbox.append(entry.id, data, screenshot);
+
+		PriorityLane lane = lanes.get(entry.priority);
+
+		// Screenshot events are multipart requests of their own
+		int maxBatchSize = Math.min(config.webhookBatchSize(), serverBatchLimit);
+		if (screenshot != null || maxBatchSize <= 1 || lane.getPriority().batchTicks(config.webhookBatchTicks()) <= 0) {
+			post(List.of(entry));
 			return;
 		}
 
+		List<WebhookBatcher.Entry> batch = lane.getBatcher().add(entry, maxBatchSize);
+		if (!batch.isEmpty()) {
+			post(batch);
+		}
+	}
+
+	private void post(List<WebhookBatcher.Entry> batch) {
+		post(batch, 0);
+	}
+
+	/**
+	 * Sends a batch as soon as its priority lane has a free slot. When the lane is
+	 * saturated the batch waits its turn, or the lane sheds its oldest waiting batch if
+	 * its drop policy allows. Shed events are acknowledged so they aren't replayed.
+	 *
+	 * @param attempt number of earlier attempts for this batch
+	 */
+	private void post(List<WebhookBatcher.Entry> batch, int attempt) {
+		PriorityLane lane = lanes.get(batch.get(0).priority);
+		if (lane.tryStart()) {
+			send(lane, batch, attempt);
+			return;
+		}
+
+		List<WebhookBatcher.Entry> dropped = lane.enqueue(new PriorityLane.Pending(batch, attempt));
+		if (!dropped.isEmpty()) {
+			log.debug("{} lane saturated, dropped {} webhook event(s)", lane.getPriority(), dropped.size());
+			ackAll(dropped);
+		}
+	}
+
+	/**
+	 * Frees a lane slot once its request has finished and starts the next waiting batch
+	 */
+	private void finish(PriorityLane lane) {
+		PriorityLane.Pending next = lane.finish();
+		if (next != null) {
+			submit(() -> send(lane, next.batch, next.attempt));
+		}
+	}
+
+	/**
+	 * Posts a batch of payloads in one request and acknowledges them in the outbox
+	 * once the server has taken it. The body is serialized and compressed as OkHttp
+	 * writes it to the socket.
+	 * <p>
+	 * The batch goes to its account's preferred ingest endpoint, or the next endpoint on
+	 * the ring whose circuit is closed. Failures the server may recover from are retried
+	 * per {@link DeliveryPolicy}; while every endpoint's circuit is open the batch is
+	 * parked instead of sent. Anything given up on stays unacknowledged and is replayed on
+	 * the next start-up.
+	 *
+	 * Must end with {@link #finish(PriorityLane)} on every path, as it holds a lane slot.
+	 *
+	 * @param attempt number of earlier attempts for this batch
+	 */
+	private void send(PriorityLane lane, List<WebhookBatcher.Entry> batch, int attempt) {
+		List<String> route = ingestRing().route(shardKey(batch.get(0).id));
+		String webhookUrl = firstAvailable(route);
+		if (webhookUrl == null) {
+			park(route.get(0), batch);
+			finish(lane);
+			return;
+		}
+		if (!webhookUrl.equals(route.get(0))) {
+			failovers.incrementAndGet();
+		}
+		CircuitBreaker breaker = breakers.get(webhookUrl);
+
 		try {
-			String json = gson.toJson(data);
-			byte[] jsonBytes = json.getBytes("UTF-8");
-			
-			ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-			try (GZIPOutputStream gzipStream = new GZIPOutputStream(byteStream)) {
-				gzipStream.write(jsonBytes);
-			}
-			byte[] compressedData = byteStream.toByteArray();
-			
-			RequestBody body = RequestBody.create(JSON, compressedData);
-			
-			Request request = new Request.Builder()
+			Request.Builder requestBuilder = new Request.Builder()
 				.url(webhookUrl)
-				.post(body)
-				.addHeader("Content-Type", "application/json")
-				.addHeader("Content-Encoding", "gzip")
 				.addHeader("User-Agent", "RuneLite-RevalClan-Plugin/" + PLUGIN_VERSION)
-				.build();
+				.addHeader("Idempotency-Key", idempotencyKey(batch));
 
-			httpClient.newCall(request).enqueue(new Callback() {
+			PayloadDictionary useDictionary = null;
+			WebhookBatcher.Entry single = batch.size() == 1 ? batch.get(0) : null;
+			if (single != null && single.screenshot != null) {
+				requestBuilder.post(multipartBody(single));
+			} else {
+				PayloadDictionary available = null;
+				CompressionController.Mode mode = CompressionController.Mode.NONE;
+				if (transport.acceptsCompressedBodies()) {
+					available = dictionaryFor();
+					List<String> eventTypes = new ArrayList<>(batch.size());
+					for (WebhookBatcher.Entry entry : batch) {
+						eventTypes.add(entry.eventType);
+					}
+					mode = compression.choose(eventTypes, available != null);
+				}
+				StreamingJsonBody body = new StreamingJsonBody(gson, batch, mode, available, compression);
+
+				requestBuilder
+					.post(body)
+					.addHeader("Content-Type", "application/json");
+
+				String contentEncoding = body.contentEncoding(DICTIONARY_CONTENT_ENCODING);
+				if (contentEncoding != null) {
+					requestBuilder.addHeader("Content-Encoding", contentEncoding);
+				}
+				if (body.usesDictionary()) {
+					useDictionary = available;
+					requestBuilder.addHeader(DICTIONARY_HEADER, useDictionary.getVersion());
+				}
+			}
+
+			if (batch.size() > 1) {
+				requestBuilder.addHeader("X-Reval-Batch-Size", String.valueOf(batch.size()));
+			}
+
+			PayloadDictionary dictionaryUsed = useDictionary;
+			transport.deliver(requestBuilder.build(), new Callback() {
 				@Override
 				public void onFailure(Call call, IOException e) {
 					log.error("Failed to send data to webhook: {}", e.getMessage());
+					finish(lane);
+					onDeliveryFailure(webhookUrl, batch, attempt, breaker, -1);
 				}
 
 				@Override
 				public void onResponse(Call call, Response response) {
+					finish(lane);
 					try {
-						if (!response.isSuccessful()) {
-							log.warn("Webhook returned non-successful status: {}", response.code());
+						updateDictionarySupport(response);
+						updateBatchSupport(response);
+						forgetMissingSnapshots(response);
+						int code = response.code();
+
+						if (dictionaryUsed != null && code == UNSUPPORTED_MEDIA_TYPE) {
+							// The server no longer decodes this dictionary; resend the batch without it
+							log.debug("Webhook dictionary {} rejected, falling back to gzip", dictionaryUsed.getVersion());
+							breaker.onSuccess();
+							dictionaryAccepted = false;
+							submit(() -> post(batch, attempt));
+						} else if (response.isSuccessful()) {
+							breaker.onSuccess();
+							ackAll(batch);
+							markSnapshotsSent(batch);
+							releaseParked();
+						} else if (DeliveryPolicy.isPermanentFailure(code)) {
+							// Replaying a payload the server rejected outright can never succeed
+							log.warn("Webhook rejected payload with status: {}", code);
+							breaker.onSuccess();
+							ackAll(batch);
+						} else {
+							log.warn("Webhook returned non-successful status: {}", code);
+							onDeliveryFailure(webhookUrl, batch, attempt, breaker,
+								DeliveryPolicy.parseRetryAfter(response.header("Retry-After")));
 						}
 					} finally {
 						response.close();
 					}
 				}
 			});
-		} catch (IOException e) {
-			log.error("Failed to prepare webhook data: {}", e.getMessage());
 		} catch (Exception e) {
 			log.error("Unexpected error preparing webhook", e);
+			// Don't leave a half-open probe slot taken forever
+			breaker.onFailure();
+			finish(lane);
 		}
 	}
-}
 
+	/**
+	 * Takes a request slot on the first endpoint of the route whose circuit allows one
+	 *
+	 * @return that endpoint, or null if every endpoint's circuit is open
+	 */
+	private String firstAvailable(List<String> route) {
+		for (String endpoint : route) {
+			if (breakers.computeIfAbsent(endpoint, CircuitBreaker::new).allowRequest()) {
+				return endpoint;
+			}
+		}
+		return null;
+	}
+
+	private boolean anyEndpointUp() {
+		for (String endpoint : ingestRing().getEndpoints()) {
+			CircuitBreaker breaker = breakers.get(endpoint);
+			if (breaker == null || breaker.getState() == CircuitBreaker.State.CLOSED) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * The ring over the ingest endpoints the server publishes with the event filters,
+	 * rebuilt when that list changes. Until one is published, or when the URL has been
+	 * overridden for local testing, everything goes to {@link #WEBHOOK_URL}.
+	 */
+	private IngestRing ingestRing() {
+		List<String> published = WEBHOOK_URL_OVERRIDDEN
+			? List.of()
+			: filterManager.getFilters().getIngestEndpoints();
+		List<String> endpoints = published.isEmpty() ? List.of(WEBHOOK_URL) : published;
+
+		IngestRing current = ring;
+		if (current == null || !endpoints.equals(ringSource)) {
+			current = new IngestRing(endpoints);
+			if (ring != null) {
+				log.debug("Webhook ingest endpoints changed to {}", current.getEndpoints());
+			}
+			ring = current;
+			ringSource = endpoints;
+		}
+		return current;
+	}
+
+	/**
+	 * Events are sharded by account: the first part of an event id is the account hash
+	 */
+	private static String shardKey(String eventId) {
+		int dash = eventId.indexOf('-');
+		return dash > 0 ? eventId.substring(0, dash) : eventId;
+	}
+
+	private void onDeliveryFailure(String webhookUrl, List<WebhookBatcher.Entry> batch, int attempt,
+								   CircuitBreaker breaker, long retryAfterMs) {
+		if (breaker.onFailure()) {
+			schedule(() -> probe(webhookUrl), breaker.millisUntilProbe());
+		}
+
+		if (attempt + 1 >= DeliveryPolicy.MAX_ATTEMPTS) {
+			abandoned.addAndGet(batch.size());
+			log.warn("Giving up on {} webhook event(s) after {} attempts, will replay on next start-up",
+				batch.size(), attempt + 1);
+			return;
+		}
+
+		retries.incrementAndGet();
+		long delay = DeliveryPolicy.backoffMillis(attempt, retryAfterMs);
+		log.debug("Retrying {} webhook event(s) in {}ms", batch.size(), delay);
+		schedule(() -> post(batch, attempt + 1), delay);
+	}
+
+	private void park(String webhookUrl, List<WebhookBatcher.Entry> batch) {
+		synchronized (parked) {
+			parked.addLast(new ParkedBatch(webhookUrl, batch));
+			parkedEvents += batch.size();
+
+			while (parkedEvents > MAX_PARKED_EVENTS && parked.size() > 1) {
+				ParkedBatch dropped = parked.pollFirst();
+				parkedEvents -= dropped.batch.size();
+				parkedDropped.addAndGet(dropped.batch.size());
+			}
+		}
+	}
+
+	private ParkedBatch pollParked(String webhookUrl) {
+		synchronized (parked) {
+			for (Iterator<ParkedBatch> it = parked.iterator(); it.hasNext(); ) {
+				ParkedBatch next = it.next();
+				if (webhookUrl == null || next.url.equals(webhookUrl)) {
+					it.remove();
+					parkedEvents -= next.batch.size();
+					return next;
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Sends the oldest batch parked for an endpoint whose open period has ended; it
+	 * becomes the half-open probe. Without parked batches the next live event probes.
+	 */
+	private void probe(String webhookUrl) {
+		ParkedBatch next = pollParked(webhookUrl);
+		if (next != null) {
+			post(next.batch, 0);
+		}
+	}
+
+	/**
+	 * Releases parked batches one at a time while their endpoints accept requests
+	 */
+	private void releaseParked() {
+		if (releasingParked.compareAndSet(false, true)) {
+			schedule(this::releaseNextParked, 0);
+		}
+	}
+
+	private void releaseNextParked() {
+		ParkedBatch next = pollParked(null);
+		if (next == null) {
+			releasingParked.set(false);
+			return;
+		}
+
+		if (!anyEndpointUp()) {
+			// Down again; the next successful probe resumes the release
+			synchronized (parked) {
+				parked.addFirst(next);
+				parkedEvents += next.batch.size();
+			}
+			releasingParked.set(false);
+			return;
+		}
+
+		post(next.batch, 0);
+		schedule(this::releaseNextParked, PARKED_RELEASE_INTERVAL_MS);
+	}
+
+	/**
+	 * Runs a task on the worker after a delay, unless the service has been shut down by then
+	 */
+	private void schedule(Runnable task, long delayMs) {
+		scheduler.schedule(() -> {
+			if (worker != null) {
+				submit(task);
+			}
+		}, delayMs, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Screenshot events go as multipart/form-data: the JSON in a "payload" part, streamed
+	 * uncompressed as it is small once the image is out of it, and the raw JPEG in a
+	 * "screenshot" part, which compression can't shrink anyway.
+	 */
+	private RequestBody multipartBody(WebhookBatcher.Entry entry) {
+		return new MultipartBody.Builder()
+			.setType(MultipartBody.FORM)
+			.addFormDataPart("payload", null,
+				new StreamingJsonBody(gson, List.of(entry), CompressionController.Mode.NONE, null, null))
+			.addFormDataPart("screenshot", "screenshot.jpg", RequestBody.create(JPEG, entry.screenshot))
+			.build();
+	}
+
+	/**
+	 * The deterministic id stamped by the notifier doubles as the outbox id, so a replayed
+	 * event carries the same id as the original attempt
+	 */
+	private static String eventId(Map<String, Object> data) {
+		Object eventId = data.get("eventId");
+		return eventId != null ? eventId.toString() : UUID.randomUUID().toString();
+	}
+
+	/**
+	 * Same key on every attempt of the same batch, so the server can drop duplicates
+	 * when a response was lost after it had already stored the events. A single event is
+	 * keyed by its event id.
+	 */
+	private static String idempotencyKey(List<WebhookBatcher.Entry> batch) {
+		if (batch.size() == 1) return batch.get(0).id;
+
+		StringBuilder ids = new StringBuilder();
+		for (WebhookBatcher.Entry entry : batch) {
+			ids.append(entry.id).append(',');
+		}
+		return UUID.nameUUIDFromBytes(ids.toString().getBytes(StandardCharsets.UTF_8)).toString();
+	}
+
+	/**
+	 * @return the dictionary to compress with, or null to compress without one
+	 */
+	private PayloadDictionary dictionaryFor() {
+		PayloadDictionary current = dictionary;
+		if (current == null || !dictionaryAccepted || !config.webhookDictionaryCompression()) {
+			return null;
+		}
+		return current;
+	}
+
+	private void updateDictionarySupport(Response response) {
+		PayloadDictionary current = dictionary;
+		if (current == null) return;
+
+		String advertised = response.header(ACCEPT_DICTIONARY_HEADER);
+		if (advertised == null) return;
+
+		boolean accepted = false;
+		for (String version : advertised.split(",")) {
+			if (version.trim().equals(current.getVersion())) {
+				accepted = true;
+				break;
+			}
+		}
+
+		if (accepted != dictionaryAccepted) {
+			log.debug("Webhook dictionary {} {}", current.getVersion(), accepted ? "accepted by server" : "no longer accepted");
+			dictionaryAccepted = accepted;
+		}
+	}
+
+	private void updateBatchSupport(Response response) {
+		String advertised = response.header(WebhookTransport.ACCEPT_BATCH_HEADER);
+		if (advertised == null) return;
+
+		int limit;
+		try {
+			limit = Math.max(1, Integer.parseInt(advertised.trim()));
+		} catch (NumberFormatException e) {
+			limit = 1;
+		}
+
+		if (limit != serverBatchLimit) {
+			log.debug("Webhook server accepts batches of up to {} event(s)", limit);
+			serverBatchLimit = limit;
+		}
+	}
+
+	/**
+	 * Records the container snapshots a delivered batch carried in full, so later events
+	 * send only their hashes
+	 */
+	private void markSnapshotsSent(List<WebhookBatcher.Entry> batch) {
+		for (WebhookBatcher.Entry entry : batch) {
+			if (entry.payload == null) continue;
+
+			for (String key : SNAPSHOT_KEYS) {
+				Object hash = entry.payload.get(key + "Hash");
+				if (hash != null && entry.payload.containsKey(key)) {
+					containerSnapshots.markSent(hash.toString());
+				}
+			}
+		}
+	}
+
+	private void forgetMissingSnapshots(Response response) {
+		String missing = response.header(MISSING_SNAPSHOTS_HEADER);
+		if (missing == null) return;
+
+		for (String hash : missing.split(",")) {
+			if (!hash.trim().isEmpty()) {
+				containerSnapshots.forget(hash.trim());
+			}
+		}
+	}
+
+	/**
+	 * Runs a task on the worker. When its queue is full the task is offered again shortly
+	 * from the scheduler, never run on the calling thread: worker state such as the ingest
+	 * ring is unsynchronized, and the caller may be the client thread. A task arriving
+	 * while the service is stopped, e.g. from a late OkHttp callback, is dropped; the
+	 * events it carried are still in the outbox.
+	 */
+	private void submit(Runnable task) {
+		WebhookExecutor current = worker;
+		if (current == null) {
+			droppedStopped.incrementAndGet();
+		} else if (!current.execute(task)) {
+			schedule(task, WORKER_RETRY_MS);
+		}
+	}
+
+	private void ackAll(List<WebhookBatcher.Entry> batch) {
+		for (WebhookBatcher.Entry entry : batch) {
+			outbox.ack(entry.id);
+		}
+	}
+}
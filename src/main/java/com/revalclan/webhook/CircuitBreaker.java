@@ -0,0 +1,109 @@
+package com.revalclan.webhook;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Circuit breaker for one webhook endpoint.
+ * <ul>
+ *   <li>CLOSED: requests flow; {@link #FAILURE_THRESHOLD} consecutive failures open it</li>
+ *   <li>OPEN: requests fail fast until the open period ends</li>
+ *   <li>HALF_OPEN: a single probe request is let through; success closes the circuit,
+ *       failure reopens it for twice as long, up to {@link #MAX_OPEN_MS}</li>
+ * </ul>
+ * Thread-safe; responses arrive on OkHttp's dispatcher threads.
+ */
+@Slf4j
+public class CircuitBreaker {
+	public enum State {
+		CLOSED,
+		OPEN,
+		HALF_OPEN
+	}
+
+	private static final int FAILURE_THRESHOLD = 5;
+	private static final long INITIAL_OPEN_MS = 30_000;
+	private static final long MAX_OPEN_MS = 5 * 60_000;
+
+	private final String endpoint;
+
+	private State state = State.CLOSED;
+	private int consecutiveFailures = 0;
+	private long openMs = INITIAL_OPEN_MS;
+	private long openUntil = 0;
+	private boolean probeInFlight = false;
+
+	public CircuitBreaker(String endpoint) {
+		this.endpoint = endpoint;
+	}
+
+	/**
+	 * @return whether a request may be sent now. When this returns true in the half-open
+	 *         state the caller's request is the probe, and it must report its outcome.
+	 */
+	public synchronized boolean allowRequest() {
+		switch (state) {
+			case CLOSED:
+				return true;
+			case OPEN:
+				if (System.currentTimeMillis() < openUntil) return false;
+				state = State.HALF_OPEN;
+				probeInFlight = true;
+				log.debug("Webhook circuit for {} half-open, probing", endpoint);
+				return true;
+			case HALF_OPEN:
+			default:
+				if (probeInFlight) return false;
+				probeInFlight = true;
+				return true;
+		}
+	}
+
+	public synchronized void onSuccess() {
+		if (state != State.CLOSED) {
+			log.info("Webhook circuit for {} closed, endpoint recovered", endpoint);
+		}
+		state = State.CLOSED;
+		consecutiveFailures = 0;
+		openMs = INITIAL_OPEN_MS;
+		probeInFlight = false;
+	}
+
+	/**
+	 * @return true if this failure opened the circuit
+	 */
+	public synchronized boolean onFailure() {
+		switch (state) {
+			case HALF_OPEN:
+				openMs = Math.min(openMs * 2, MAX_OPEN_MS);
+				open();
+				return true;
+			case CLOSED:
+				if (++consecutiveFailures >= FAILURE_THRESHOLD) {
+					open();
+					return true;
+				}
+				return false;
+			case OPEN:
+			default:
+				return false;
+		}
+	}
+
+	public synchronized State getState() {
+		return state;
+	}
+
+	/**
+	 * @return milliseconds until a probe may be sent, 0 if one may be sent now
+	 */
+	public synchronized long millisUntilProbe() {
+		return state == State.OPEN ? Math.max(0, openUntil - System.currentTimeMillis()) : 0;
+	}
+
+	private void open() {
+		state = State.OPEN;
+		openUntil = System.currentTimeMillis() + openMs;
+		probeInFlight = false;
+		log.warn("Webhook circuit for {} open for {}s after repeated failures", endpoint, openMs / 1000);
+	}
+}
@@ -0,0 +1,172 @@
+package com.revalclan.webhook;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+
+/**
+ * Picks how hard to compress each webhook request.
+ * <p>
+ * The raw size of a request isn't known until it has been streamed, so decisions use a
+ * moving average of the size of each event type, learned from earlier requests:
+ * <ul>
+ *   <li>small requests are sent uncompressed, as gzip's framing and CPU cost buy almost
+ *       nothing there (unless a preset dictionary is in use, which shines on exactly
+ *       those)</li>
+ *   <li>large requests use the high level, as long as the measured CPU time per kilobyte
+ *       on this machine keeps them within {@link #HIGH_CPU_BUDGET_NANOS}</li>
+ *   <li>everything else uses the fast level</li>
+ * </ul>
+ * Compression ratio and CPU time are tracked per event type for diagnostics.
+ */
+public class CompressionController {
+	@Getter
+	@RequiredArgsConstructor
+	public enum Mode {
+		NONE(0),
+		FAST(Deflater.BEST_SPEED),
+		HIGH(Deflater.BEST_COMPRESSION);
+
+		private final int level;
+	}
+
+	/** Below this, compression saves less than the gzip framing and the CPU cost are worth */
+	private static final long SMALL_REQUEST_BYTES = 1024;
+
+	/** Only requests this big are considered for the high level */
+	private static final long HIGH_MIN_BYTES = 32 * 1024;
+
+	/** Most CPU time a single request may spend on high-level compression */
+	private static final long HIGH_CPU_BUDGET_NANOS = 20_000_000;
+
+	/** Weight of the newest sample in the moving averages */
+	private static final double EWMA_ALPHA = 0.2;
+
+	private static class TypeStats {
+		double averageRawBytes;
+		long requests;
+		long rawBytes;
+		long compressedBytes;
+		long cpuNanos;
+	}
+
+	private final Map<String, TypeStats> types = new ConcurrentHashMap<>();
+
+	/** Moving average of CPU nanoseconds per raw kilobyte, per mode; 0 until measured */
+	private final double[] nanosPerKb = new double[Mode.values().length];
+
+	/**
+	 * @param eventTypes event type of each payload in the request
+	 * @param dictionary whether the request would be compressed with a preset dictionary
+	 */
+	public Mode choose(Collection<String> eventTypes, boolean dictionary) {
+		long estimate = 0;
+		for (String eventType : eventTypes) {
+			TypeStats stats = types.get(eventType);
+			if (stats == null) {
+				// Never seen: compress at the fast level until its size is known
+				return Mode.FAST;
+			}
+			estimate += (long) stats.averageRawBytes;
+		}
+
+		if (estimate < SMALL_REQUEST_BYTES) {
+			return dictionary ? Mode.FAST : Mode.NONE;
+		}
+
+		if (estimate >= HIGH_MIN_BYTES) {
+			double highCost;
+			synchronized (nanosPerKb) {
+				highCost = nanosPerKb[Mode.HIGH.ordinal()];
+			}
+			// An unmeasured high level gets one try; the measurement then decides
+			if (highCost == 0 || highCost * estimate / 1024 <= HIGH_CPU_BUDGET_NANOS) {
+				return Mode.HIGH;
+			}
+		}
+		return Mode.FAST;
+	}
+
+	/**
+	 * Records what a request cost. The compressed size and CPU time are shared out between
+	 * event types in proportion to their raw bytes.
+	 *
+	 * @param eventTypes event type of each payload in the request
+	 * @param rawBytes raw JSON bytes of each payload, in the same order
+	 */
+	public void record(Mode mode, String[] eventTypes, long[] rawBytes, long compressedBytes, long cpuNanos) {
+		long totalRaw = 0;
+		for (long bytes : rawBytes) totalRaw += bytes;
+		if (totalRaw == 0) return;
+
+		for (int i = 0; i < eventTypes.length; i++) {
+			double share = (double) rawBytes[i] / totalRaw;
+			TypeStats stats = types.computeIfAbsent(eventTypes[i], k -> new TypeStats());
+			synchronized (stats) {
+				stats.averageRawBytes = stats.requests == 0
+					? rawBytes[i]
+					: stats.averageRawBytes + EWMA_ALPHA * (rawBytes[i] - stats.averageRawBytes);
+				stats.requests++;
+				stats.rawBytes += rawBytes[i];
+				stats.compressedBytes += Math.round(compressedBytes * share);
+				stats.cpuNanos += Math.round(cpuNanos * share);
+			}
+		}
+
+		if (mode != Mode.NONE) {
+			double sample = cpuNanos * 1024.0 / totalRaw;
+			synchronized (nanosPerKb) {
+				double current = nanosPerKb[mode.ordinal()];
+				nanosPerKb[mode.ordinal()] = current == 0 ? sample : current + EWMA_ALPHA * (sample - current);
+			}
+		}
+	}
+
+	/**
+	 * @return compressed/raw ratio per event type; 1.0 means no saving
+	 */
+	public Map<String, Double> getCompressionRatios() {
+		Map<String, Double> ratios = new TreeMap<>();
+		types.forEach((type, stats) -> {
+			synchronized (stats) {
+				if (stats.rawBytes > 0) ratios.put(type, (double) stats.compressedBytes / stats.rawBytes);
+			}
+		});
+		return ratios;
+	}
+
+	/**
+	 * @return average CPU milliseconds spent compressing one payload, per event type
+	 */
+	public Map<String, Double> getAverageCompressionMillis() {
+		Map<String, Double> millis = new TreeMap<>();
+		types.forEach((type, stats) -> {
+			synchronized (stats) {
+				if (stats.requests > 0) millis.put(type, stats.cpuNanos / (stats.requests * 1_000_000.0));
+			}
+		});
+		return millis;
+	}
+
+	public String describeStats() {
+		Map<String, Double> ratios = getCompressionRatios();
+		Map<String, Double> millis = getAverageCompressionMillis();
+
+		Map<String, String> parts = new LinkedHashMap<>();
+		for (Map.Entry<String, Double> entry : ratios.entrySet()) {
+			parts.put(entry.getKey(), String.format("ratio=%.2f avgMs=%.3f",
+				entry.getValue(), millis.getOrDefault(entry.getKey(), 0.0)));
+		}
+
+		synchronized (nanosPerKb) {
+			return String.format("fastNsPerKb=%.0f, highNsPerKb=%.0f, types=%s",
+				nanosPerKb[Mode.FAST.ordinal()], nanosPerKb[Mode.HIGH.ordinal()], parts);
+		}
+	}
+}
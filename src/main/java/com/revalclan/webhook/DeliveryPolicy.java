@@ -0,0 +1,74 @@
+package com.revalclan.webhook;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides whether and when a failed webhook request is retried.
+ * <p>
+ * Only failures that can succeed on a second attempt are retried: network errors,
+ * 5xx, 408 and 429. Delays use exponential backoff with full jitter, so clients that
+ * failed together during an incident don't come back in lockstep, and never undercut
+ * a {@code Retry-After} sent by the server. Retries are safe because every request
+ * carries an idempotency key.
+ */
+public final class DeliveryPolicy {
+	public static final int MAX_ATTEMPTS = 5;
+
+	private static final long BASE_DELAY_MS = 1000;
+	private static final long MAX_DELAY_MS = TimeUnit.MINUTES.toMillis(1);
+
+	/** A misbehaving proxy shouldn't be able to park events for hours */
+	private static final long MAX_RETRY_AFTER_MS = TimeUnit.MINUTES.toMillis(10);
+
+	private DeliveryPolicy() {}
+
+	public static boolean isRetryable(int code) {
+		return code >= 500 || code == 408 || code == 429;
+	}
+
+	/**
+	 * A 4xx other than timeouts and rate limiting: resending the same payload can never
+	 * succeed
+	 */
+	public static boolean isPermanentFailure(int code) {
+		return code >= 400 && code < 500 && !isRetryable(code);
+	}
+
+	/**
+	 * @param attempt the attempt that just failed, starting at 0
+	 * @param retryAfterMs delay requested by the server, or -1
+	 * @return how long to wait before the next attempt
+	 */
+	public static long backoffMillis(int attempt, long retryAfterMs) {
+		long ceiling = Math.min(MAX_DELAY_MS, BASE_DELAY_MS << Math.min(attempt, 16));
+		long jittered = ThreadLocalRandom.current().nextLong(ceiling + 1);
+		return Math.max(jittered, Math.min(retryAfterMs, MAX_RETRY_AFTER_MS));
+	}
+
+	/**
+	 * Parses a {@code Retry-After} header, given either in seconds or as an HTTP date.
+	 *
+	 * @return the delay in milliseconds, or -1 if absent or malformed
+	 */
+	public static long parseRetryAfter(String header) {
+		if (header == null || header.isEmpty()) return -1;
+
+		try {
+			return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(header.trim())));
+		} catch (NumberFormatException ignored) {
+			// Not seconds, try a date
+		}
+
+		try {
+			ZonedDateTime when = ZonedDateTime.parse(header.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+			return Math.max(0, Duration.between(ZonedDateTime.now(when.getZone()), when).toMillis());
+		} catch (DateTimeParseException e) {
+			return -1;
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package com.revalclan.webhook;
+
+import javax.inject.Singleton;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Derives a deterministic id for each webhook event from the account, the game tick,
+ * the event type and a hash of the event's content.
+ * <p>
+ * The id is stamped once, when the event is raised, and then travels with it through
+ * batching, retries and outbox replay, so the server can recognise every copy of the same
+ * event. Identical events raised in the same tick (two identical drops from a multi-kill)
+ * get a sequence suffix so they stay distinct. The tick count starts over every session,
+ * so the time the current tick sequence started is part of the id too.
+ * <p>
+ * Ids only contain {@code [0-9a-zA-Z_-]}, so they are safe in headers and file names.
+ * Client thread only.
+ */
+@Singleton
+public class EventIdGenerator {
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private int currentTick = -1;
+	private String sessionMarker = null;
+	private final Map<String, Integer> issuedThisTick = new HashMap<>();
+
+	/**
+	 * @param content the event data, before any metadata is added
+	 */
+	public String next(long accountHash, int tick, String eventType, Map<String, Object> content) {
+		if (sessionMarker == null || tick < currentTick) {
+			// Tick count went backwards: a new session
+			sessionMarker = Long.toString((System.currentTimeMillis() - tick * 600L) / 1000, 36);
+		}
+		if (tick != currentTick) {
+			currentTick = tick;
+			issuedThisTick.clear();
+		}
+
+		String id = Long.toHexString(accountHash) + '-' + sessionMarker + '-' + tick + '-' + eventType
+			+ '-' + Long.toHexString(hash(content));
+		int seen = issuedThisTick.merge(id, 1, Integer::sum);
+		return seen == 1 ? id : id + '-' + seen;
+	}
+
+	/**
+	 * Content hash that is stable across sessions: unlike {@code hashCode()} on enums or
+	 * arbitrary objects it only depends on values, and map entries are combined in an
+	 * order-independent way since notifiers build their payloads in hash maps.
+	 */
+	static long hash(Object value) {
+		if (value == null) return 0;
+
+		if (value instanceof Map) {
+			long sum = 0;
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				sum += mix(mix(FNV_OFFSET, hash(String.valueOf(entry.getKey()))), hash(entry.getValue()));
+			}
+			return mix(FNV_OFFSET ^ 'M', sum);
+		}
+		if (value instanceof Collection) {
+			long h = FNV_OFFSET ^ 'L';
+			for (Object element : (Collection<?>) value) {
+				h = mix(h, hash(element));
+			}
+			return h;
+		}
+		if (value instanceof Object[]) {
+			long h = FNV_OFFSET ^ 'L';
+			for (Object element : (Object[]) value) {
+				h = mix(h, hash(element));
+			}
+			return h;
+		}
+		if (value instanceof Number) {
+			Number number = (Number) value;
+			return value instanceof Double || value instanceof Float
+				? mix(FNV_OFFSET ^ 'D', Double.doubleToLongBits(number.doubleValue()))
+				: mix(FNV_OFFSET ^ 'N', number.longValue());
+		}
+		if (value instanceof Enum) {
+			return hash(((Enum<?>) value).name());
+		}
+
+		String text = String.valueOf(value);
+		long h = FNV_OFFSET;
+		for (int i = 0; i < text.length(); i++) {
+			h = (h ^ text.charAt(i)) * FNV_PRIME;
+		}
+		return h;
+	}
+
+	private static long mix(long h, long value) {
+		for (int i = 0; i < 8; i++) {
+			h = (h ^ (value & 0xff)) * FNV_PRIME;
+			value >>>= 8;
+		}
+		return h;
+	}
+}
@@ -0,0 +1,98 @@
+package com.revalclan.webhook;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Delivery lanes for webhook events. Each lane has its own in-flight limit, batching
+ * window and drop policy, so a burst of CHAT spam can never hold up a pet drop.
+ * <p>
+ * The in-flight limits are the plugin's own cap on concurrent uploads per lane, not a
+ * share of OkHttp's dispatcher, which RuneLite shares with core and other plugins. HIGH
+ * gets two so a rare event isn't stuck behind one slow upload; the other lanes get one
+ * each, so a burst uploads one request at a time and batches up instead of opening
+ * connections.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum EventPriority {
+	/** Rare, valuable events: pets, deaths, new collection log slots, big drops */
+	HIGH(2, 1000, DropPolicy.NEVER),
+	/** Routine progress: kill counts, ordinary loot, quests, diaries, leagues tasks */
+	NORMAL(1, 200, DropPolicy.NEVER),
+	/** High-frequency, low-value events, shed first under pressure */
+	BULK(1, 50, DropPolicy.DROP_OLDEST),
+	/** Session and whole-account state; never batched */
+	SYNC(1, 20, DropPolicy.NEVER);
+
+	public enum DropPolicy {
+		/** Keep queueing; these events must not be lost */
+		NEVER,
+		/** Discard the longest-waiting batch to make room */
+		DROP_OLDEST
+	}
+
+	/** LOOT worth at least this much goes in the HIGH lane */
+	public static final long HIGH_VALUE_LOOT = 1_000_000;
+
+	/** BULK events wait at least this many ticks so bursts share a request */
+	private static final int BULK_MIN_BATCH_TICKS = 5;
+
+	private static final Set<String> HIGH_TYPES = Set.of("PET", "DEATH", "COLLECTION");
+	private static final Set<String> BULK_TYPES = Set.of("CHAT", "EMOTE", "MUSIC_PLAYED");
+	private static final Set<String> SYNC_TYPES = Set.of("LOGIN", "LOGOUT", "SYNC", "LEAGUES_SYNC");
+
+	private final int maxInFlight;
+	private final int maxQueuedBatches;
+	private final DropPolicy dropPolicy;
+
+	/**
+	 * @param configuredTicks the batching window set in the plugin config
+	 * @return how many ticks an event in this lane may wait for others to share its request
+	 */
+	public int batchTicks(int configuredTicks) {
+		switch (this) {
+			case HIGH:
+				return Math.min(configuredTicks, 1);
+			case BULK:
+				return configuredTicks <= 0 ? 0 : Math.max(configuredTicks, BULK_MIN_BATCH_TICKS);
+			case SYNC:
+				return 0;
+			case NORMAL:
+			default:
+				return configuredTicks;
+		}
+	}
+
+	/**
+	 * @param payload the event payload, or null if only the type is known (replayed events)
+	 */
+	public static EventPriority classify(String eventType, Map<String, Object> payload) {
+		if (SYNC_TYPES.contains(eventType)) return SYNC;
+		if (BULK_TYPES.contains(eventType)) return BULK;
+		if (HIGH_TYPES.contains(eventType)) return HIGH;
+		if ("LOOT".equals(eventType) && payload != null && isNotableLoot(payload)) return HIGH;
+		return NORMAL;
+	}
+
+	private static boolean isNotableLoot(Map<String, Object> payload) {
+		Object value = payload.get("totalGEValue");
+		if (value instanceof Number && ((Number) value).longValue() >= HIGH_VALUE_LOOT) {
+			return true;
+		}
+
+		Object items = payload.get("items");
+		if (items instanceof Collection) {
+			for (Object item : (Collection<?>) items) {
+				if (item instanceof Map && Boolean.TRUE.equals(((Map<?, ?>) item).get("isNewCollectionLogItem"))) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,87 @@
+package com.revalclan.webhook;
+
+import com.google.gson.Gson;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Callback;
+import okhttp3.Request;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes webhook events to NDJSON segment files instead of sending them, one event per
+ * line, rolling over to a new {@code NNNNNNNN.ndjson} segment every
+ * {@link #MAX_SEGMENT_BYTES}. Screenshots are not stored.
+ * <p>
+ * Segments use the same layout the payload tools under {@code src/test} read, so a soak
+ * run doubles as a sample set for them.
+ */
+@Slf4j
+public class FileSinkTransport implements WebhookTransport {
+	private static final long MAX_SEGMENT_BYTES = 8L * 1024 * 1024;
+
+	private final Gson gson;
+	private final File directory;
+
+	private long seq = 0;
+	private long segmentBytes = 0;
+	private Writer writer;
+
+	public FileSinkTransport(Gson gson, File directory) {
+		this.gson = gson;
+		this.directory = directory;
+	}
+
+	@Override
+	public synchronized void deliver(Request request, Callback callback) {
+		try {
+			List<String> events = SinkRequests.events(gson, request);
+			for (String event : events) {
+				if (writer == null || segmentBytes >= MAX_SEGMENT_BYTES) {
+					roll();
+				}
+				writer.write(event);
+				writer.write('\n');
+				segmentBytes += event.length() + 1;
+			}
+			writer.flush();
+		} catch (IOException e) {
+			callback.onFailure(null, e);
+			return;
+		}
+
+		try {
+			callback.onResponse(null, WebhookTransport.accepted(request));
+		} catch (IOException e) {
+			log.debug("Webhook sink callback failed: {}", e.getMessage());
+		}
+	}
+
+	@Override
+	public boolean acceptsCompressedBodies() {
+		return false;
+	}
+
+	private void roll() throws IOException {
+		if (writer != null) writer.close();
+
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Could not create webhook sink directory " + directory);
+		}
+
+		File file;
+		do {
+			file = new File(directory, String.format("%08d.ndjson", ++seq));
+		} while (file.exists());
+
+		log.info("Writing webhook events to {}", file);
+		writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+		segmentBytes = 0;
+	}
+}
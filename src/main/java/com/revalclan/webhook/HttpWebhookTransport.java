@@ -0,0 +1,21 @@
+package com.revalclan.webhook;
+
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+
+/**
+ * Posts webhook requests to the Reval API through RuneLite's shared OkHttp client
+ */
+public class HttpWebhookTransport implements WebhookTransport {
+	private final OkHttpClient httpClient;
+
+	public HttpWebhookTransport(OkHttpClient httpClient) {
+		this.httpClient = httpClient;
+	}
+
+	@Override
+	public void deliver(Request request, Callback callback) {
+		httpClient.newCall(request).enqueue(callback);
+	}
+}
@@ -0,0 +1,85 @@
+package com.revalclan.webhook;
+
+import com.google.gson.Gson;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Callback;
+import okhttp3.Request;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps delivered webhook events in memory, for benchmarks and tests. Only the most
+ * recent {@link #RETAINED_EVENTS} are retained; the counters cover everything.
+ */
+@Slf4j
+public class InMemoryTransport implements WebhookTransport {
+	private static final int RETAINED_EVENTS = 10_000;
+
+	private final Gson gson;
+	private final Deque<String> events = new ArrayDeque<>();
+	private long requestCount = 0;
+	private long eventCount = 0;
+	private long jsonBytes = 0;
+	private long screenshotBytes = 0;
+
+	public InMemoryTransport(Gson gson) {
+		this.gson = gson;
+	}
+
+	@Override
+	public void deliver(Request request, Callback callback) {
+		try {
+			List<String> received = SinkRequests.events(gson, request);
+			long screenshot = SinkRequests.screenshotBytes(request);
+
+			synchronized (this) {
+				requestCount++;
+				screenshotBytes += screenshot;
+				for (String event : received) {
+					eventCount++;
+					jsonBytes += event.length();
+					events.addLast(event);
+					if (events.size() > RETAINED_EVENTS) events.pollFirst();
+				}
+			}
+		} catch (IOException e) {
+			callback.onFailure(null, e);
+			return;
+		}
+
+		try {
+			callback.onResponse(null, WebhookTransport.accepted(request));
+		} catch (IOException e) {
+			log.debug("Webhook sink callback failed: {}", e.getMessage());
+		}
+	}
+
+	@Override
+	public boolean acceptsCompressedBodies() {
+		return false;
+	}
+
+	/**
+	 * @return the retained events, oldest first, as compact JSON
+	 */
+	public synchronized List<String> getEvents() {
+		return new ArrayList<>(events);
+	}
+
+	public synchronized void clear() {
+		events.clear();
+		requestCount = 0;
+		eventCount = 0;
+		jsonBytes = 0;
+		screenshotBytes = 0;
+	}
+
+	public synchronized String describe() {
+		return String.format("requests=%d, events=%d, jsonBytes=%d, screenshotBytes=%d",
+			requestCount, eventCount, jsonBytes, screenshotBytes);
+	}
+}
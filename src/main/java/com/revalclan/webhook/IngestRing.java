@@ -0,0 +1,95 @@
+package com.revalclan.webhook;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Consistent-hash ring over the webhook ingest endpoints. Each account maps to a
+ * preferred endpoint, followed by the other endpoints in ring order to fail over to.
+ * <p>
+ * Every endpoint owns {@link #POINTS_PER_ENDPOINT} points on the ring, so adding or
+ * removing one endpoint only moves the accounts whose points it owned.
+ * Immutable; a new ring is built whenever the published endpoint list changes.
+ */
+public class IngestRing {
+	private static final int POINTS_PER_ENDPOINT = 128;
+
+	@Getter
+	private final List<String> endpoints;
+
+	private final long[] points;
+	private final int[] owners;
+
+	public IngestRing(List<String> endpoints) {
+		if (endpoints.isEmpty()) {
+			throw new IllegalArgumentException("No ingest endpoints");
+		}
+		this.endpoints = List.copyOf(new LinkedHashSet<>(endpoints));
+
+		int size = this.endpoints.size() * POINTS_PER_ENDPOINT;
+		long[] hashes = new long[size];
+		for (int e = 0; e < this.endpoints.size(); e++) {
+			for (int p = 0; p < POINTS_PER_ENDPOINT; p++) {
+				int i = e * POINTS_PER_ENDPOINT + p;
+				hashes[i] = hash(this.endpoints.get(e) + '#' + p);
+			}
+		}
+
+		// Sort point indices by hash, keeping track of which endpoint owns each point
+		Integer[] order = new Integer[size];
+		for (int i = 0; i < size; i++) order[i] = i;
+		Arrays.sort(order, (a, b) -> Long.compare(hashes[a], hashes[b]));
+
+		points = new long[size];
+		owners = new int[size];
+		for (int i = 0; i < size; i++) {
+			points[i] = hashes[order[i]];
+			owners[i] = order[i] / POINTS_PER_ENDPOINT;
+		}
+	}
+
+	/**
+	 * @param key routing key, e.g. the account hash part of an event id
+	 * @return every endpoint, the preferred one for this key first
+	 */
+	public List<String> route(String key) {
+		if (endpoints.size() == 1) return endpoints;
+
+		int start = Arrays.binarySearch(points, hash(key));
+		if (start < 0) start = -start - 1;
+
+		List<String> route = new ArrayList<>(endpoints.size());
+		boolean[] seen = new boolean[endpoints.size()];
+		for (int i = 0; i < points.length && route.size() < endpoints.size(); i++) {
+			int owner = owners[(start + i) % points.length];
+			if (!seen[owner]) {
+				seen[owner] = true;
+				route.add(endpoints.get(owner));
+			}
+		}
+		return route;
+	}
+
+	/**
+	 * 64-bit FNV-1a, finished with the MurmurHash3 mixer so that similar keys spread
+	 * over the whole ring
+	 */
+	private static long hash(String key) {
+		long h = 0xcbf29ce484222325L;
+		for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+			h ^= b & 0xff;
+			h *= 0x100000001b3L;
+		}
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
@@ -0,0 +1,235 @@
+package com.revalclan.webhook;
+
+import com.google.gson.Gson;
+import lombok.Value;
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Upper bound on what one event uploads, JSON plus screenshot, per event type. Payloads
+ * over budget are degraded in {@link Degradation} order until they fit, which bounds
+ * upload time on slow connections.
+ * <p>
+ * Measuring serializes the payload, so budgets are applied on the webhook worker, never
+ * on the client thread.
+ */
+public final class PayloadBudget {
+	/** Steps applied to a payload over budget, in order; recorded under {@code degradations} */
+	public enum Degradation {
+		/** The inventory and equipment metadata is left out */
+		INVENTORY_EQUIPMENT_DROPPED,
+		/** The screenshot is re-encoded at a lower resolution */
+		SCREENSHOT_DOWNSCALED,
+		/** Item entries carry only their id, without the name */
+		ITEM_NAMES_DROPPED
+	}
+
+	/** No budget: the account syncs can't lose data */
+	public static final long UNLIMITED = Long.MAX_VALUE;
+
+	/** A payload and screenshot after {@link #apply} */
+	@Value
+	public static class Budgeted {
+		Map<String, Object> payload;
+		byte[] screenshot;
+		/** Names of the {@link Degradation} steps taken; empty if the payload fit */
+		List<String> degradations;
+	}
+
+	private static final long DEFAULT_BUDGET = 192 * 1024;
+
+	private PayloadBudget() {}
+
+	/**
+	 * @return the byte budget for an event type, or {@link #UNLIMITED}
+	 */
+	public static long budgetFor(String eventType) {
+		switch (eventType) {
+			case "SYNC":
+			case "LEAGUES_SYNC":
+			case "LOGIN":
+			case "LOGOUT":
+				// Login and logout carry the full account sync
+				return UNLIMITED;
+			case "DEATH":
+			case "LOOT":
+				// Item lists and a screenshot are the point of these
+				return 256 * 1024;
+			case "CHAT":
+			case "EMOTE":
+			case "MUSIC_PLAYED":
+				return 16 * 1024;
+			default:
+				return DEFAULT_BUDGET;
+		}
+	}
+
+	/**
+	 * Degrades a payload over its event type's byte budget until it fits: drops the
+	 * inventory and equipment, then downscales the screenshot, then drops item names.
+	 * The steps taken are listed under {@code degradations}. The payload itself is left
+	 * untouched, so it may be frozen.
+	 *
+	 * @param screenshot JPEG bytes, or null
+	 * @param downscale returns a smaller JPEG, or null if it can't get any smaller
+	 */
+	public static Budgeted apply(Gson gson, Map<String, Object> payload, byte[] screenshot, UnaryOperator<byte[]> downscale) {
+		long budget = budgetFor(String.valueOf(payload.get("eventType")));
+		if (budget == UNLIMITED) return new Budgeted(payload, screenshot, List.of());
+
+		long jsonBytes = measure(gson, payload);
+		if (jsonBytes + sizeOf(screenshot) <= budget) return new Budgeted(payload, screenshot, List.of());
+
+		Map<String, Object> data = new LinkedHashMap<>(payload);
+		List<String> degradations = new ArrayList<>();
+		if (dropInventoryAndEquipment(data)) {
+			degradations.add(Degradation.INVENTORY_EQUIPMENT_DROPPED.name());
+			jsonBytes = measure(gson, data);
+		}
+
+		while (screenshot != null && jsonBytes + screenshot.length > budget) {
+			byte[] smaller = downscale.apply(screenshot);
+			if (smaller == null) break;
+			if (!degradations.contains(Degradation.SCREENSHOT_DOWNSCALED.name())) {
+				degradations.add(Degradation.SCREENSHOT_DOWNSCALED.name());
+			}
+			screenshot = smaller;
+		}
+
+		if (jsonBytes + sizeOf(screenshot) > budget && dropItemNames(data)) {
+			degradations.add(Degradation.ITEM_NAMES_DROPPED.name());
+		}
+
+		if (degradations.isEmpty()) return new Budgeted(payload, screenshot, List.of());
+		data.put("degradations", Collections.unmodifiableList(degradations));
+		return new Budgeted(Collections.unmodifiableMap(data), screenshot, degradations);
+	}
+
+	/**
+	 * @return serialized size of the payload in UTF-8 bytes, without building the string
+	 */
+	public static long measure(Gson gson, Map<String, Object> data) {
+		Utf8CountingWriter counter = new Utf8CountingWriter();
+		gson.toJson(data, Map.class, counter);
+		return counter.bytes;
+	}
+
+	private static long sizeOf(byte[] screenshot) {
+		return screenshot != null ? screenshot.length : 0;
+	}
+
+	/**
+	 * @return true if the payload had inventory or equipment metadata to drop
+	 */
+	public static boolean dropInventoryAndEquipment(Map<String, Object> data) {
+		boolean inventory = data.remove("inventory") != null;
+		boolean equipment = data.remove("equipment") != null;
+		return inventory || equipment;
+	}
+
+	/**
+	 * Removes the name from every nested item entry, i.e. every map with both an
+	 * {@code id} and a {@code name}. Nested maps and lists are copied, not modified.
+	 *
+	 * @return true if any name was removed
+	 */
+	public static boolean dropItemNames(Map<String, Object> data) {
+		boolean changed = false;
+		for (Map.Entry<String, Object> entry : data.entrySet()) {
+			Object stripped = withoutItemNames(entry.getValue());
+			if (stripped != entry.getValue()) {
+				entry.setValue(stripped);
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * @return the value itself if it holds no item names, otherwise a stripped copy
+	 */
+	private static Object withoutItemNames(Object value) {
+		if (value instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) value;
+			boolean item = map.containsKey("id") && map.containsKey("name");
+			Map<Object, Object> copy = null;
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				Object stripped = withoutItemNames(entry.getValue());
+				if (stripped != entry.getValue() && copy == null) {
+					copy = new LinkedHashMap<>(map);
+				}
+				if (copy != null) copy.put(entry.getKey(), stripped);
+			}
+			if (item) {
+				if (copy == null) copy = new LinkedHashMap<>(map);
+				copy.remove("name");
+			}
+			return copy != null ? copy : value;
+		}
+
+		if (value instanceof List) {
+			List<?> list = (List<?>) value;
+			List<Object> copy = null;
+			for (int i = 0; i < list.size(); i++) {
+				Object element = list.get(i);
+				Object stripped = withoutItemNames(element);
+				if (stripped != element && copy == null) {
+					copy = new ArrayList<>(list);
+				}
+				if (copy != null) copy.set(i, stripped);
+			}
+			return copy != null ? copy : value;
+		}
+
+		return value;
+	}
+
+	/** Counts the bytes the written characters take in UTF-8 */
+	private static class Utf8CountingWriter extends Writer {
+		long bytes;
+
+		@Override
+		public void write(char[] buffer, int offset, int length) {
+			for (int i = offset; i < offset + length; i++) {
+				add(buffer[i]);
+			}
+		}
+
+		@Override
+		public void write(int c) {
+			add((char) c);
+		}
+
+		@Override
+		public void write(String str, int offset, int length) {
+			for (int i = offset; i < offset + length; i++) {
+				add(str.charAt(i));
+			}
+		}
+
+		private void add(char c) {
+			if (c < 0x80) {
+				bytes += 1;
+			} else if (c < 0x800) {
+				bytes += 2;
+			} else if (Character.isSurrogate(c)) {
+				// Each half of a pair, which encodes as four bytes
+				bytes += 2;
+			} else {
+				bytes += 3;
+			}
+		}
+
+		@Override
+		public void flush() {}
+
+		@Override
+		public void close() {}
+	}
+}
@@ -0,0 +1,82 @@
+package com.revalclan.webhook;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Adler32;
+import java.util.zip.Deflater;
+
+/**
+ * Versioned preset dictionary for deflate-compressing webhook payloads.
+ * <p>
+ * Payloads are dominated by the same keys, event types and skill names, which plain
+ * gzip has to learn again in every request. Priming the deflater with them lets even a
+ * small EMOTE or LEVEL event back-reference them from the first byte.
+ * <p>
+ * Dictionaries ship as {@code payload-dict-<version>.txt} next to this class and are
+ * generated by {@code PayloadDictionaryTrainer}. The most common fragments sit at the end,
+ * where deflate can reach them with the shortest distances. A dictionary must never be
+ * edited in place: the server decodes with the copy matching the advertised version.
+ */
+@Slf4j
+public final class PayloadDictionary {
+	public static final String CURRENT_VERSION = "v1";
+
+	@Getter
+	private final String version;
+
+	private final byte[] bytes;
+
+	/** Adler-32 of the dictionary, as written into the zlib header */
+	@Getter
+	private final long checksum;
+
+	private PayloadDictionary(String version, byte[] bytes) {
+		this.version = version;
+		this.bytes = bytes;
+
+		Adler32 adler = new Adler32();
+		adler.update(bytes);
+		this.checksum = adler.getValue();
+	}
+
+	/**
+	 * @return the dictionary for the given version, or null if it isn't bundled
+	 */
+	public static PayloadDictionary load(String version) {
+		String resource = "payload-dict-" + version + ".txt";
+		try (InputStream in = PayloadDictionary.class.getResourceAsStream(resource)) {
+			if (in == null) {
+				log.warn("Payload dictionary {} not found", resource);
+				return null;
+			}
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+			return new PayloadDictionary(version, out.toByteArray());
+		} catch (IOException e) {
+			log.warn("Failed to load payload dictionary {}: {}", resource, e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * @return a zlib deflater primed with this dictionary; the caller must end it
+	 */
+	public Deflater newDeflater(int level) {
+		Deflater deflater = new Deflater(level);
+		deflater.setDictionary(bytes);
+		return deflater;
+	}
+
+	public int size() {
+		return bytes.length;
+	}
+}
@@ -0,0 +1,49 @@
+package com.revalclan.webhook;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Freezes a notifier payload into an immutable copy so it can be serialized on a
+ * background thread while the notifier keeps reusing or mutating its own maps.
+ * <p>
+ * Strings, numbers, booleans and enums are immutable and shared; maps, collections
+ * and arrays are copied recursively. Must be called on the thread that built the payload;
+ * freezing a frozen payload again is safe on any thread.
+ */
+public final class PayloadSnapshot {
+	private PayloadSnapshot() {}
+
+	public static Map<String, Object> freeze(Map<String, Object> data) {
+		return freezeMap(data);
+	}
+
+	private static Map<String, Object> freezeMap(Map<?, ?> map) {
+		Map<String, Object> copy = new LinkedHashMap<>(Math.max(4, (int) (map.size() / 0.75f) + 1));
+		for (Map.Entry<?, ?> entry : map.entrySet()) {
+			copy.put(String.valueOf(entry.getKey()), freezeValue(entry.getValue()));
+		}
+		return Collections.unmodifiableMap(copy);
+	}
+
+	private static List<Object> freezeCollection(Collection<?> collection) {
+		List<Object> copy = new ArrayList<>(collection.size());
+		for (Object value : collection) {
+			copy.add(freezeValue(value));
+		}
+		return Collections.unmodifiableList(copy);
+	}
+
+	private static Object freezeValue(Object value) {
+		if (value instanceof Map) return freezeMap((Map<?, ?>) value);
+		if (value instanceof Collection) return freezeCollection((Collection<?>) value);
+		if (value instanceof Object[]) return freezeCollection(List.of((Object[]) value));
+		if (value instanceof int[]) return ((int[]) value).clone();
+		if (value instanceof long[]) return ((long[]) value).clone();
+		return value;
+	}
+}
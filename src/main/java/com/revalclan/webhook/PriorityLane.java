@@ -0,0 +1,94 @@
+package com.revalclan.webhook;
+
+import lombok.Getter;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runtime state of one {@link EventPriority} lane: its batcher, how many of its requests
+ * are in flight and the batches waiting for a free slot.
+ * <p>
+ * Requests are started through {@link #tryStart()} and every started request must end
+ * with {@link #finish()}, which hands over the next waiting batch, if any.
+ */
+public class PriorityLane {
+	/** A batch waiting for a free slot in its lane */
+	public static class Pending {
+		public final List<WebhookBatcher.Entry> batch;
+		public final int attempt;
+
+		public Pending(List<WebhookBatcher.Entry> batch, int attempt) {
+			this.batch = batch;
+			this.attempt = attempt;
+		}
+	}
+
+	@Getter
+	private final EventPriority priority;
+
+	@Getter
+	private final WebhookBatcher batcher = new WebhookBatcher();
+
+	private final Deque<Pending> waiting = new ArrayDeque<>();
+	private int inFlight = 0;
+	private int peakWaiting = 0;
+
+	private final AtomicLong sent = new AtomicLong();
+	private final AtomicLong droppedEvents = new AtomicLong();
+
+	public PriorityLane(EventPriority priority) {
+		this.priority = priority;
+	}
+
+	/**
+	 * @return true if a slot was taken and the caller may send now
+	 */
+	public synchronized boolean tryStart() {
+		if (inFlight >= priority.getMaxInFlight()) return false;
+		inFlight++;
+		sent.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * Frees the slot of a finished request.
+	 *
+	 * @return the next waiting batch, which now holds that slot, or null
+	 */
+	public synchronized Pending finish() {
+		Pending next = waiting.pollFirst();
+		if (next == null) {
+			inFlight = Math.max(0, inFlight - 1);
+		} else {
+			sent.incrementAndGet();
+		}
+		return next;
+	}
+
+	/**
+	 * Queues a batch until a slot frees up, applying the lane's drop policy when full.
+	 *
+	 * @return entries that were dropped to make room
+	 */
+	public synchronized List<WebhookBatcher.Entry> enqueue(Pending pending) {
+		List<WebhookBatcher.Entry> dropped = Collections.emptyList();
+		if (waiting.size() >= priority.getMaxQueuedBatches()
+			&& priority.getDropPolicy() == EventPriority.DropPolicy.DROP_OLDEST) {
+			dropped = waiting.pollFirst().batch;
+			droppedEvents.addAndGet(dropped.size());
+		}
+
+		waiting.addLast(pending);
+		peakWaiting = Math.max(peakWaiting, waiting.size());
+		return dropped;
+	}
+
+	public synchronized String describe() {
+		return String.format("%s[inFlight=%d, waiting=%d, peakWaiting=%d, sent=%d, dropped=%d]",
+			priority, inFlight, waiting.size(), peakWaiting, sent.get(), droppedEvents.get());
+	}
+}
@@ -0,0 +1,54 @@
+package com.revalclan.webhook;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import okhttp3.MultipartBody;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okio.Buffer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unpacks the events in an uncompressed webhook request for the local sinks
+ */
+final class SinkRequests {
+	private SinkRequests() {}
+
+	/**
+	 * @return one compact JSON document per event; screenshot parts are left out
+	 */
+	static List<String> events(Gson gson, Request request) throws IOException {
+		RequestBody body = request.body();
+		if (body instanceof MultipartBody) {
+			// The JSON part comes first; the screenshot part is binary
+			body = ((MultipartBody) body).part(0).body();
+		}
+		if (body == null) return new ArrayList<>();
+
+		Buffer buffer = new Buffer();
+		body.writeTo(buffer);
+
+		JsonElement json = gson.fromJson(buffer.readUtf8(), JsonElement.class);
+		List<String> events = new ArrayList<>();
+		if (json != null && json.isJsonArray()) {
+			for (JsonElement event : json.getAsJsonArray()) {
+				events.add(gson.toJson(event));
+			}
+		} else if (json != null) {
+			events.add(gson.toJson(json));
+		}
+		return events;
+	}
+
+	/**
+	 * @return bytes of the screenshot part, or 0 if the request has none
+	 */
+	static long screenshotBytes(Request request) throws IOException {
+		RequestBody body = request.body();
+		if (!(body instanceof MultipartBody) || ((MultipartBody) body).size() < 2) return 0;
+		return ((MultipartBody) body).part(1).body().contentLength();
+	}
+}
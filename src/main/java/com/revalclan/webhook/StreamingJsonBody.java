@@ -0,0 +1,217 @@
+package com.revalclan.webhook;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.DeflaterSink;
+import okio.ForwardingSink;
+import okio.GzipSink;
+import okio.Okio;
+import okio.Sink;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Request body that streams webhook payloads through a {@link JsonWriter} straight into
+ * a compressing sink, so the JSON text and its compressed form are never held in memory
+ * as a whole. Buffers come from okio's shared segment pool.
+ * <p>
+ * Compression follows the {@link CompressionController.Mode}: none, or gzip at the mode's
+ * level, or zlib deflate primed with a {@link PayloadDictionary} when one is given. The
+ * raw size of each payload, the bytes put on the wire and the CPU time spent compressing
+ * are reported back to the controller.
+ * <p>
+ * A single event is written as an object, several as a JSON array envelope. The body
+ * can be written more than once, so OkHttp may retry it.
+ */
+public class StreamingJsonBody extends RequestBody {
+	private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+	private final Gson gson;
+	private final List<WebhookBatcher.Entry> entries;
+	private final CompressionController.Mode mode;
+	private final PayloadDictionary dictionary;
+	private final CompressionController controller;
+
+	public StreamingJsonBody(Gson gson, List<WebhookBatcher.Entry> entries, CompressionController.Mode mode,
+							 PayloadDictionary dictionary, CompressionController controller) {
+		this.gson = gson;
+		this.entries = entries;
+		this.mode = mode;
+		this.dictionary = mode == CompressionController.Mode.NONE ? null : dictionary;
+		this.controller = controller;
+	}
+
+	/**
+	 * @return the Content-Encoding this body is written with, or null if uncompressed
+	 */
+	public String contentEncoding(String dictionaryEncoding) {
+		if (mode == CompressionController.Mode.NONE) return null;
+		return dictionary != null ? dictionaryEncoding : "gzip";
+	}
+
+	public boolean usesDictionary() {
+		return dictionary != null;
+	}
+
+	@Override
+	public MediaType contentType() {
+		return JSON;
+	}
+
+	@Override
+	public long contentLength() {
+		return -1;
+	}
+
+	@Override
+	public void writeTo(BufferedSink sink) throws IOException {
+		CountingSink wire = new CountingSink(sink);
+		TimedSink compressing = new TimedSink(compress(wire));
+		String[] eventTypes = new String[entries.size()];
+		long[] rawBytes = new long[entries.size()];
+
+		try (BufferedSink buffered = Okio.buffer(compressing);
+			 RawStream raw = new RawStream(buffered);
+			 Writer writer = new OutputStreamWriter(raw, StandardCharsets.UTF_8)) {
+			JsonWriter json = gson.newJsonWriter(writer);
+
+			boolean array = entries.size() > 1;
+			if (array) json.beginArray();
+			for (int i = 0; i < entries.size(); i++) {
+				long before = raw.count;
+				WebhookBatcher.Entry entry = entries.get(i);
+				writeEntry(json, entry);
+				// Pushes the encoder's buffer into the sink without flushing the compressor
+				writer.flush();
+				eventTypes[i] = entry.eventType;
+				rawBytes[i] = raw.count - before;
+			}
+			if (array) json.endArray();
+			json.flush();
+		}
+
+		if (controller != null) {
+			controller.record(mode, eventTypes, rawBytes, wire.count, compressing.cpuNanos);
+		}
+	}
+
+	private Sink compress(Sink wire) {
+		if (mode == CompressionController.Mode.NONE) {
+			return wire;
+		}
+		if (dictionary != null) {
+			// Closing the sink also ends its deflater
+			return new DeflaterSink(wire, dictionary.newDeflater(mode.getLevel()));
+		}
+		GzipSink gzip = new GzipSink(wire);
+		gzip.deflater().setLevel(mode.getLevel());
+		return gzip;
+	}
+
+	private void writeEntry(JsonWriter json, WebhookBatcher.Entry entry) throws IOException {
+		if (entry.payload != null) {
+			gson.toJson(entry.payload, Map.class, json);
+		} else {
+			// Replayed from the outbox, already serialized
+			json.jsonValue(entry.json);
+		}
+	}
+
+	private static long cpuTime() {
+		return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+	}
+
+	/** Counts the bytes that reach the wire */
+	private static class CountingSink extends ForwardingSink {
+		long count;
+
+		CountingSink(Sink delegate) {
+			super(delegate);
+		}
+
+		@Override
+		public void write(Buffer source, long byteCount) throws IOException {
+			super.write(source, byteCount);
+			count += byteCount;
+		}
+	}
+
+	/**
+	 * Measures CPU time spent in the compressor. Uses thread CPU time so time blocked on
+	 * the socket doesn't count.
+	 */
+	private static class TimedSink extends ForwardingSink {
+		long cpuNanos;
+
+		TimedSink(Sink delegate) {
+			super(delegate);
+		}
+
+		@Override
+		public void write(Buffer source, long byteCount) throws IOException {
+			long start = cpuTime();
+			try {
+				super.write(source, byteCount);
+			} finally {
+				cpuNanos += cpuTime() - start;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			long start = cpuTime();
+			try {
+				super.close();
+			} finally {
+				cpuNanos += cpuTime() - start;
+			}
+		}
+	}
+
+	/**
+	 * Feeds the raw JSON bytes into the buffered sink and counts them. Flushing is a no-op,
+	 * as a deflater flush would cost compression ratio; the bytes are compressed on close.
+	 */
+	private static class RawStream extends OutputStream {
+		private final BufferedSink sink;
+		long count;
+
+		RawStream(BufferedSink sink) {
+			this.sink = sink;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			sink.writeByte(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			sink.write(b, off, len);
+			count += len;
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() throws IOException {
+			sink.close();
+		}
+	}
+}
@@ -0,0 +1,206 @@
+package com.revalclan.webhook;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Bounded queue of events waiting for the webhook worker, so a burst of chat patterns
+ * or leagues tasks can't pile up unbounded payloads in memory.
+ * <p>
+ * When the queue is full, the event's {@link OverflowPolicy} decides what happens. Every
+ * event shed or merged is counted per event type. Offering never waits: the producer is
+ * usually the client thread.
+ */
+@Slf4j
+public class SubmissionQueue {
+	public enum OverflowPolicy {
+		/**
+		 * Make room by shedding a sheddable event; if there is none, admit the event over
+		 * capacity and count it. Never loses the event.
+		 */
+		ADMIT,
+		/** Discard the oldest queued event of the same type, or else the oldest sheddable one */
+		DROP_OLDEST,
+		/** Discard the incoming event */
+		DROP_NEWEST,
+		/**
+		 * Merge into a queued event with the same rollup key, which then reports how many
+		 * were folded into it; without a match, discard the incoming event
+		 */
+		COALESCE
+	}
+
+	private static final OverflowPolicy DEFAULT_POLICY = OverflowPolicy.ADMIT;
+	private static final Map<String, OverflowPolicy> POLICIES = Map.of(
+		"CHAT", OverflowPolicy.COALESCE,
+		"EMOTE", OverflowPolicy.COALESCE,
+		"MUSIC_PLAYED", OverflowPolicy.DROP_OLDEST
+	);
+
+	public static class Submission {
+		public final String eventType;
+		public final Map<String, Object> payload;
+		public final byte[] screenshot;
+		final String rollupKey;
+
+		/** Events folded into this one, and the timestamp of the latest of them */
+		int coalescedCount = 0;
+		Object lastEventTimestamp;
+
+		public Submission(Map<String, Object> payload, byte[] screenshot) {
+			this.payload = payload;
+			this.screenshot = screenshot;
+			this.eventType = String.valueOf(payload.get("eventType"));
+			this.rollupKey = rollupKey(eventType, payload);
+		}
+
+		public int getCoalescedCount() {
+			return coalescedCount;
+		}
+
+		public Object getLastEventTimestamp() {
+			return lastEventTimestamp;
+		}
+	}
+
+	private final Deque<Submission> queue = new ArrayDeque<>();
+	private volatile int capacity;
+
+	private final Map<String, Long> shed = new TreeMap<>();
+	private final Map<String, Long> coalesced = new TreeMap<>();
+	private long overCapacity = 0;
+	private int peakSize = 0;
+
+	public SubmissionQueue(int capacity) {
+		this.capacity = capacity;
+	}
+
+	public void setCapacity(int capacity) {
+		this.capacity = capacity;
+	}
+
+	public static OverflowPolicy policyFor(String eventType) {
+		return POLICIES.getOrDefault(eventType, DEFAULT_POLICY);
+	}
+
+	/**
+	 * @return true if the event was queued as a new entry and needs draining; false if
+	 *         it was merged into a queued one or shed
+	 */
+	public synchronized boolean offer(Submission submission) {
+		if (queue.size() >= capacity) {
+			OverflowPolicy policy = policyFor(submission.eventType);
+			switch (policy) {
+				case DROP_NEWEST:
+					count(shed, submission.eventType);
+					return false;
+				case COALESCE:
+					Submission into = findRollup(submission);
+					if (into != null) {
+						into.coalescedCount++;
+						into.lastEventTimestamp = submission.payload.get("eventTimestamp");
+						count(coalesced, submission.eventType);
+					} else {
+						count(shed, submission.eventType);
+					}
+					return false;
+				case DROP_OLDEST:
+					if (!evict(submission.eventType) && !evict(null)) {
+						count(shed, submission.eventType);
+						return false;
+					}
+					break;
+				case ADMIT:
+				default:
+					if (!evict(null)) {
+						overCapacity++;
+					}
+					break;
+			}
+		}
+
+		queue.addLast(submission);
+		peakSize = Math.max(peakSize, queue.size());
+		return true;
+	}
+
+	public synchronized Submission poll() {
+		return queue.pollFirst();
+	}
+
+	public synchronized boolean isEmpty() {
+		return queue.isEmpty();
+	}
+
+	/**
+	 * Discards everything still queued, e.g. on shutdown
+	 *
+	 * @return how many events were discarded
+	 */
+	public synchronized int clear() {
+		int size = queue.size();
+		queue.clear();
+		return size;
+	}
+
+	public synchronized String describe() {
+		return String.format("size=%d, capacity=%d, peak=%d, overCapacity=%d, shed=%s, coalesced=%s",
+			queue.size(), capacity, peakSize, overCapacity, shed, coalesced);
+	}
+
+	/**
+	 * Removes the oldest queued event that may be shed.
+	 *
+	 * @param eventType only consider this type, or null for any sheddable type
+	 * @return whether an event was removed
+	 */
+	private boolean evict(String eventType) {
+		for (Iterator<Submission> it = queue.iterator(); it.hasNext(); ) {
+			Submission queued = it.next();
+			boolean matches = eventType != null
+				? queued.eventType.equals(eventType)
+				: policyFor(queued.eventType) != OverflowPolicy.ADMIT;
+			if (matches) {
+				it.remove();
+				count(shed, queued.eventType);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Submission findRollup(Submission submission) {
+		// Newest first: the most recent match is the one still gathering duplicates
+		for (Iterator<Submission> it = queue.descendingIterator(); it.hasNext(); ) {
+			Submission queued = it.next();
+			if (queued.rollupKey != null && queued.rollupKey.equals(submission.rollupKey)) {
+				return queued;
+			}
+		}
+		return null;
+	}
+
+	private static void count(Map<String, Long> counter, String eventType) {
+		counter.merge(eventType, 1L, Long::sum);
+	}
+
+	/**
+	 * Events that only differ in when they happened roll up together
+	 */
+	private static String rollupKey(String eventType, Map<String, Object> payload) {
+		switch (eventType) {
+			case "CHAT":
+				return eventType + '|' + Objects.toString(payload.get("messageType")) + '|' + Objects.toString(payload.get("message"));
+			case "EMOTE":
+				return eventType + '|' + Objects.toString(payload.get("emote"));
+			default:
+				return null;
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package com.revalclan.webhook;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects events raised within a few game ticks of each other so they
+ * can share a single request. A batch is released once it reaches the size limit or
+ * its oldest event has waited the maximum number of ticks.
+ * <p>
+ * Events may arrive from the client thread or from screenshot workers, so all
+ * access is synchronized.
+ */
+public class WebhookBatcher {
+	/**
+	 * An event together with its outbox id. Live events carry the frozen payload tree
+	 * and are serialized while the request is written; events replayed from the outbox
+	 * carry their stored JSON text instead. A screenshot, if any, travels next to the
+	 * JSON as raw JPEG bytes.
+	 */
+	public static class Entry {
+		public final String id;
+		public final Map<String, Object> payload;
+		public final String json;
+		public final String eventType;
+		public final byte[] screenshot;
+		public final EventPriority priority;
+
+		public Entry(String id, Map<String, Object> payload) {
+			this(id, payload, null);
+		}
+
+		public Entry(String id, Map<String, Object> payload, byte[] screenshot) {
+			this.id = id;
+			this.payload = payload;
+			this.json = null;
+			this.eventType = String.valueOf(payload.get("eventType"));
+			this.screenshot = screenshot;
+			this.priority = EventPriority.classify(eventType, payload);
+		}
+
+		public Entry(String id, String json) {
+			this(id, json, null);
+		}
+
+		public Entry(String id, String json, byte[] screenshot) {
+			this.id = id;
+			this.payload = null;
+			this.json = json;
+			this.eventType = eventTypeOf(json);
+			this.screenshot = screenshot;
+			this.priority = EventPriority.classify(eventType, null);
+		}
+
+		/** Cheap lookup for stored JSON, which is always written compactly by Gson */
+		private static String eventTypeOf(String json) {
+			String key = "\"eventType\":\"";
+			int start = json.indexOf(key);
+			if (start < 0) return "null";
+			start += key.length();
+			int end = json.indexOf('"', start);
+			return end < 0 ? "null" : json.substring(start, end);
+		}
+	}
+
+	private List<Entry> pending = new ArrayList<>();
+	private int ticksWaited = 0;
+
+	/**
+	 * Adds an event to the open batch.
+	 *
+	 * @return the batch if it is now full and should be sent, otherwise an empty list
+	 */
+	public synchronized List<Entry> add(Entry entry, int maxSize) {
+		pending.add(entry);
+		if (pending.size() >= maxSize) {
+			return drain();
+		}
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Advances the batching window by one tick.
+	 *
+	 * @return the batch if its oldest event has waited long enough, otherwise an empty list
+	 */
+	public synchronized List<Entry> onTick(int maxTicks) {
+		if (pending.isEmpty()) return Collections.emptyList();
+
+		if (++ticksWaited >= maxTicks) {
+			return drain();
+		}
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Releases whatever is in the open batch, regardless of size or age.
+	 */
+	public synchronized List<Entry> drain() {
+		if (pending.isEmpty()) return Collections.emptyList();
+
+		List<Entry> batch = pending;
+		pending = new ArrayList<>();
+		ticksWaited = 0;
+		return batch;
+	}
+}
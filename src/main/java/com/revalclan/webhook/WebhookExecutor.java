@@ -0,0 +1,119 @@
+package com.revalclan.webhook;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single background thread with a bounded queue that does the webhook work the
+ * client thread must not: JSON serialization, compression, outbox writes and
+ * request setup. Tracks queue depth and per-task processing time.
+ */
+@Slf4j
+public class WebhookExecutor {
+	private final BlockingQueue<Runnable> queue;
+	private final ThreadPoolExecutor executor;
+
+	private final AtomicLong processed = new AtomicLong();
+	private final AtomicLong totalNanos = new AtomicLong();
+	private final AtomicLong maxNanos = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private volatile int peakQueueDepth = 0;
+
+	public WebhookExecutor(String threadName, int capacity) {
+		queue = new ArrayBlockingQueue<>(capacity);
+		executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, queue, r -> {
+			Thread thread = new Thread(r, threadName);
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Queues a task. A task is never run on the calling thread, which is usually the
+	 * client thread or an OkHttp callback; when the queue is full or the executor has
+	 * stopped, it is counted and handed back instead.
+	 *
+	 * @return false if the task was rejected, in which case the caller decides whether to
+	 *         retry it later
+	 */
+	public boolean execute(Runnable task) {
+		try {
+			executor.execute(() -> runTimed(task));
+		} catch (RejectedExecutionException e) {
+			rejected.incrementAndGet();
+			return false;
+		}
+
+		int depth = queue.size();
+		if (depth > peakQueueDepth) peakQueueDepth = depth;
+		return true;
+	}
+
+	/**
+	 * Stops accepting tasks and waits for the queued ones to finish.
+	 */
+	public void shutdown(long timeoutMs) {
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)) {
+				log.warn("Webhook executor did not drain in time, {} task(s) dropped", queue.size());
+				executor.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			executor.shutdownNow();
+		}
+		log.debug("Webhook executor stopped: {}", describeMetrics());
+	}
+
+	public int getQueueDepth() {
+		return queue.size();
+	}
+
+	public int getPeakQueueDepth() {
+		return peakQueueDepth;
+	}
+
+	public long getProcessedCount() {
+		return processed.get();
+	}
+
+	public long getRejectedCount() {
+		return rejected.get();
+	}
+
+	public double getAverageProcessingMillis() {
+		long count = processed.get();
+		return count == 0 ? 0 : totalNanos.get() / (count * 1_000_000.0);
+	}
+
+	public double getMaxProcessingMillis() {
+		return maxNanos.get() / 1_000_000.0;
+	}
+
+	public String describeMetrics() {
+		return String.format("processed=%d, queueDepth=%d, peakQueueDepth=%d, rejected=%d, avgMs=%.2f, maxMs=%.2f",
+			getProcessedCount(), getQueueDepth(), getPeakQueueDepth(), getRejectedCount(),
+			getAverageProcessingMillis(), getMaxProcessingMillis());
+	}
+
+	private void runTimed(Runnable task) {
+		long start = System.nanoTime();
+		try {
+			task.run();
+		} catch (Exception e) {
+			log.error("Webhook task failed", e);
+		} finally {
+			long elapsed = System.nanoTime() - start;
+			processed.incrementAndGet();
+			totalNanos.addAndGet(elapsed);
+			maxNanos.accumulateAndGet(elapsed, Math::max);
+		}
+	}
+}
@@ -0,0 +1,497 @@
+package com.revalclan.webhook;
+
+import com.google.gson.Gson;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable write-ahead outbox for webhook payloads.
+ * <p>
+ * Every payload is appended to the active segment before it is posted and acknowledged
+ * once the server has accepted it. Segments whose entries are all acknowledged are
+ * deleted; whatever is left after a crash or an API outage is replayed on the next
+ * start-up, at a bounded rate so it doesn't compete with live events.
+ * <p>
+ * Layout under the directory it is given, {@code .runelite/reval/outbox} in the client:
+ * <ul>
+ *   <li>{@code NNNNNNNN.seg} - one {@code id \t timestamp \t json} record per line</li>
+ *   <li>{@code NNNNNNNN.ack} - one acknowledged id per line</li>
+ *   <li>{@code <id>.jpg} - screenshot attached to an entry, kept out of the JSON</li>
+ * </ul>
+ * All file access happens on a single outbox thread, so appends and acks for an entry
+ * are always applied in submission order. Payloads are serialized straight into the
+ * segment writer rather than through an intermediate string.
+ */
+@Slf4j
+public class WebhookOutbox {
+	private static final String SEGMENT_SUFFIX = ".seg";
+	private static final String ACK_SUFFIX = ".ack";
+	private static final String ATTACHMENT_SUFFIX = ".jpg";
+
+	/** Roll over to a new segment once the active one reaches this size. */
+	private static final long MAX_SEGMENT_BYTES = 2L * 1024 * 1024;
+
+	/** Oldest segments are discarded when unacknowledged data exceeds this. */
+	private static final long MAX_OUTBOX_BYTES = 32L * 1024 * 1024;
+
+	/** Entries older than this are not worth replaying; the server would reject them as stale. */
+	private static final long MAX_ENTRY_AGE_MS = TimeUnit.DAYS.toMillis(7);
+
+	/** Fsync after this many unsynced writes, or after {@link #FSYNC_INTERVAL_MS}, whichever comes first. */
+	private static final int FSYNC_BATCH_SIZE = 16;
+	private static final long FSYNC_INTERVAL_MS = 500;
+
+	/** Replayed entries drain at one per interval. */
+	private static final long REPLAY_INTERVAL_MS = 500;
+
+	private static class Segment {
+		final long seq;
+		final File dataFile;
+		final File ackFile;
+		int pending;
+		boolean sealed;
+
+		Segment(File directory, long seq) {
+			this.seq = seq;
+			this.dataFile = new File(directory, String.format("%08d%s", seq, SEGMENT_SUFFIX));
+			this.ackFile = new File(directory, String.format("%08d%s", seq, ACK_SUFFIX));
+		}
+	}
+
+	/**
+	 * Receives each replayed entry. It must call {@link #ack(String)} once the entry has
+	 * been delivered.
+	 */
+	public interface ReplayHandler {
+		/**
+		 * @param attachment screenshot stored with the entry, or null
+		 */
+		void replay(String id, String json, byte[] attachment);
+	}
+
+	private static class ReplayEntry {
+		final String id;
+		final String json;
+
+		ReplayEntry(String id, String json) {
+			this.id = id;
+			this.json = json;
+		}
+	}
+
+	private final Gson gson;
+	private final File directory;
+	private final long maxSegmentBytes;
+	private final long maxOutboxBytes;
+
+	/** Unacknowledged entry id → segment that holds it. Outbox thread only. */
+	private final Map<String, Segment> entrySegments = new HashMap<>();
+	private final Deque<ReplayEntry> replayQueue = new ArrayDeque<>();
+
+	private ScheduledExecutorService io;
+	private ScheduledFuture<?> replayTask;
+	private ReplayHandler replayHandler;
+
+	private Segment active;
+	private FileOutputStream dataStream;
+	private BufferedWriter dataWriter;
+	private FileOutputStream ackStream;
+	private BufferedWriter ackWriter;
+	private int unsyncedWrites = 0;
+	private boolean available = false;
+
+	public WebhookOutbox(Gson gson, File directory) {
+		this(gson, directory, MAX_SEGMENT_BYTES, MAX_OUTBOX_BYTES);
+	}
+
+	/**
+	 * With smaller segment and outbox caps, so tests can exercise rollover and discarding
+	 */
+	WebhookOutbox(Gson gson, File directory, long maxSegmentBytes, long maxOutboxBytes) {
+		this.gson = gson;
+		this.directory = directory;
+		this.maxSegmentBytes = maxSegmentBytes;
+		this.maxOutboxBytes = maxOutboxBytes;
+	}
+
+	/**
+	 * Opens the outbox and schedules replay of everything left unacknowledged by a
+	 * previous session.
+	 *
+	 * @param replayHandler receives each replayed entry
+	 */
+	public synchronized void start(ReplayHandler replayHandler) {
+		if (io != null) return;
+
+		this.replayHandler = replayHandler;
+		io = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "reval-webhook-outbox");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		io.execute(this::recover);
+		io.scheduleWithFixedDelay(this::syncIfDirty, FSYNC_INTERVAL_MS, FSYNC_INTERVAL_MS, TimeUnit.MILLISECONDS);
+		replayTask = io.scheduleWithFixedDelay(this::replayNext, REPLAY_INTERVAL_MS, REPLAY_INTERVAL_MS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Flushes and fsyncs everything written so far, then closes the outbox.
+	 * Unacknowledged entries stay on disk for the next start-up.
+	 */
+	public synchronized void stop() {
+		if (io == null) return;
+
+		io.execute(() -> {
+			sync();
+			closeWriters();
+			replayQueue.clear();
+			entrySegments.clear();
+			available = false;
+		});
+		io.shutdown();
+		try {
+			if (!io.awaitTermination(2, TimeUnit.SECONDS)) {
+				log.warn("Webhook outbox did not flush in time");
+				io.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			io.shutdownNow();
+		}
+		io = null;
+		replayTask = null;
+	}
+
+	/**
+	 * Appends a payload to the outbox. Safe to call from any thread; the payload must
+	 * not be modified afterwards, as it is serialized later on the outbox thread.
+	 */
+	public synchronized void append(String id, Map<String, Object> payload) {
+		append(id, payload, null);
+	}
+
+	/**
+	 * Appends a payload with a screenshot, which is stored in a side file next to the
+	 * segments rather than inside the JSON record.
+	 */
+	public synchronized void append(String id, Map<String, Object> payload, byte[] attachment) {
+		if (io == null) return;
+
+		long timestamp = System.currentTimeMillis();
+		io.execute(() -> write(id, timestamp, payload, attachment));
+	}
+
+	/**
+	 * Marks a payload as delivered. Safe to call from any thread.
+	 */
+	public synchronized void ack(String id) {
+		if (io == null) return;
+
+		io.execute(() -> writeAck(id));
+	}
+
+	// ========== Outbox thread ==========
+
+	private void recover() {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			log.warn("Could not create webhook outbox directory {}", directory);
+			return;
+		}
+
+		File[] segmentFiles = directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+		if (segmentFiles == null) segmentFiles = new File[0];
+		Arrays.sort(segmentFiles, Comparator.comparing(File::getName));
+
+		discardOverflow(segmentFiles);
+
+		long cutoff = System.currentTimeMillis() - MAX_ENTRY_AGE_MS;
+		long nextSeq = 1;
+
+		for (File file : segmentFiles) {
+			if (!file.exists()) continue;
+
+			long seq;
+			try {
+				seq = Long.parseLong(file.getName().substring(0, file.getName().length() - SEGMENT_SUFFIX.length()));
+			} catch (NumberFormatException e) {
+				continue;
+			}
+			nextSeq = Math.max(nextSeq, seq + 1);
+
+			Segment segment = new Segment(directory, seq);
+			segment.sealed = true;
+
+			try {
+				Set<String> acked = readAcks(segment.ackFile);
+				try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+					String line;
+					while ((line = reader.readLine()) != null) {
+						// A torn final line from a crash mid-write has fewer than three fields
+						String[] parts = line.split("\t", 3);
+						if (parts.length < 3 || acked.contains(parts[0])) continue;
+
+						long timestamp;
+						try {
+							timestamp = Long.parseLong(parts[1]);
+						} catch (NumberFormatException e) {
+							continue;
+						}
+						if (timestamp < cutoff) continue;
+
+						segment.pending++;
+						entrySegments.put(parts[0], segment);
+						replayQueue.add(new ReplayEntry(parts[0], parts[2]));
+					}
+				}
+			} catch (IOException e) {
+				log.warn("Failed to read webhook outbox segment {}: {}", file.getName(), e.getMessage());
+				continue;
+			}
+
+			if (segment.pending == 0) {
+				deleteSegment(segment);
+			}
+		}
+
+		deleteOrphanedAttachments();
+
+		if (!replayQueue.isEmpty()) {
+			log.info("Replaying {} undelivered webhook event(s)", replayQueue.size());
+		}
+
+		try {
+			openSegment(nextSeq);
+			available = true;
+		} catch (IOException e) {
+			log.warn("Failed to open webhook outbox segment: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Drops the oldest segments when the outbox has grown past its cap, e.g. after a
+	 * long outage, so replay can never turn into an unbounded backlog.
+	 */
+	private void discardOverflow(File[] segmentFiles) {
+		long total = 0;
+		for (File file : segmentFiles) total += file.length();
+
+		for (File file : segmentFiles) {
+			if (total <= maxOutboxBytes) break;
+			total -= file.length();
+			log.warn("Webhook outbox over capacity, discarding {}", file.getName());
+			String ackName = file.getName().replace(SEGMENT_SUFFIX, ACK_SUFFIX);
+			deleteQuietly(new File(directory, ackName));
+			deleteQuietly(file);
+		}
+	}
+
+	/**
+	 * Attachments of entries that were delivered, expired or discarded with their segment
+	 */
+	private void deleteOrphanedAttachments() {
+		File[] attachments = directory.listFiles((dir, name) -> name.endsWith(ATTACHMENT_SUFFIX));
+		if (attachments == null) return;
+
+		for (File file : attachments) {
+			String id = file.getName().substring(0, file.getName().length() - ATTACHMENT_SUFFIX.length());
+			if (!entrySegments.containsKey(id)) {
+				deleteQuietly(file);
+			}
+		}
+	}
+
+	private Set<String> readAcks(File ackFile) throws IOException {
+		Set<String> acked = new HashSet<>();
+		if (!ackFile.exists()) return acked;
+
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(ackFile), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (!line.isEmpty()) acked.add(line);
+			}
+		}
+		return acked;
+	}
+
+	private void openSegment(long seq) throws IOException {
+		active = new Segment(directory, seq);
+		dataStream = new FileOutputStream(active.dataFile, true);
+		dataWriter = new BufferedWriter(new OutputStreamWriter(dataStream, StandardCharsets.UTF_8));
+		ackStream = new FileOutputStream(active.ackFile, true);
+		ackWriter = new BufferedWriter(new OutputStreamWriter(ackStream, StandardCharsets.UTF_8));
+	}
+
+	private void write(String id, long timestamp, Map<String, Object> payload, byte[] attachment) {
+		if (!available) return;
+
+		try {
+			if (attachment != null) {
+				// Written first, so a record never points at a missing attachment
+				Files.write(attachmentFile(id).toPath(), attachment);
+			}
+
+			// Excludes whatever is still buffered in the writer; close enough for a rollover threshold
+			if (dataStream.getChannel().size() >= maxSegmentBytes) {
+				rollSegment();
+			}
+
+			dataWriter.write(id);
+			dataWriter.write('\t');
+			dataWriter.write(Long.toString(timestamp));
+			dataWriter.write('\t');
+			try {
+				// Gson escapes control characters, so the record stays on one line
+				gson.toJson(payload, Map.class, dataWriter);
+			} finally {
+				// Terminate a partially written record so it can't run into the next one
+				dataWriter.newLine();
+			}
+			active.pending++;
+			entrySegments.put(id, active);
+			markWritten();
+		} catch (Exception e) {
+			log.warn("Failed to append to webhook outbox: {}", e.getMessage());
+		}
+	}
+
+	private void writeAck(String id) {
+		Segment segment = entrySegments.remove(id);
+		if (segment == null) return;
+
+		deleteQuietly(attachmentFile(id));
+
+		segment.pending--;
+		if (segment.sealed && segment.pending <= 0) {
+			// Every entry delivered: no need to record the ack, the segment goes away
+			deleteSegment(segment);
+			return;
+		}
+
+		try {
+			if (segment == active) {
+				ackWriter.write(id);
+				ackWriter.newLine();
+			} else {
+				try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+					new FileOutputStream(segment.ackFile, true), StandardCharsets.UTF_8))) {
+					writer.write(id);
+					writer.newLine();
+				}
+			}
+			markWritten();
+		} catch (IOException e) {
+			log.warn("Failed to record webhook outbox ack: {}", e.getMessage());
+		}
+	}
+
+	private void rollSegment() throws IOException {
+		sync();
+		closeWriters();
+
+		Segment previous = active;
+		previous.sealed = true;
+		openSegment(previous.seq + 1);
+
+		if (previous.pending <= 0) {
+			deleteSegment(previous);
+		}
+	}
+
+	private void replayNext() {
+		ReplayEntry entry = replayQueue.poll();
+		if (entry == null) {
+			if (available && replayTask != null) {
+				replayTask.cancel(false);
+			}
+			return;
+		}
+
+		// Already acknowledged by a live send of the same id
+		if (!entrySegments.containsKey(entry.id)) return;
+
+		try {
+			File attachment = attachmentFile(entry.id);
+			byte[] bytes = attachment.exists() ? Files.readAllBytes(attachment.toPath()) : null;
+			replayHandler.replay(entry.id, entry.json, bytes);
+		} catch (Exception e) {
+			log.warn("Failed to replay webhook event: {}", e.getMessage());
+		}
+	}
+
+	private void markWritten() {
+		if (++unsyncedWrites >= FSYNC_BATCH_SIZE) {
+			sync();
+		}
+	}
+
+	private void syncIfDirty() {
+		if (unsyncedWrites > 0) {
+			sync();
+		}
+	}
+
+	private void sync() {
+		if (dataWriter == null) return;
+
+		try {
+			dataWriter.flush();
+			ackWriter.flush();
+			dataStream.getChannel().force(false);
+			ackStream.getChannel().force(false);
+			unsyncedWrites = 0;
+		} catch (IOException e) {
+			log.warn("Failed to sync webhook outbox: {}", e.getMessage());
+		}
+	}
+
+	private void closeWriters() {
+		try {
+			if (dataWriter != null) dataWriter.close();
+			if (ackWriter != null) ackWriter.close();
+		} catch (IOException e) {
+			log.debug("Failed to close webhook outbox segment: {}", e.getMessage());
+		}
+		dataWriter = null;
+		ackWriter = null;
+		dataStream = null;
+		ackStream = null;
+	}
+
+	private File attachmentFile(String id) {
+		return new File(directory, id + ATTACHMENT_SUFFIX);
+	}
+
+	private void deleteSegment(Segment segment) {
+		deleteQuietly(segment.ackFile);
+		deleteQuietly(segment.dataFile);
+	}
+
+	private static void deleteQuietly(File file) {
+		if (file.exists() && !file.delete()) {
+			log.debug("Could not delete {}", file);
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package com.revalclan.webhook;
+
+import okhttp3.Callback;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Delivers webhook requests. The live implementation posts them over HTTP; the local
+ * sinks let delivery be benchmarked and soak-tested without the Reval API.
+ * <p>
+ * Picked at start-up by {@code RevalClanPlugin.provideWebhookTransport} from the
+ * {@code reval.webhook.transport} system property: {@code http} (default),
+ * {@code file} or {@code memory}.
+ */
+public interface WebhookTransport {
+	/**
+	 * The server advertises the most events it takes in one array request in this
+	 * response header. Until it has, every event goes out on its own, as a single object.
+	 */
+	String ACCEPT_BATCH_HEADER = "X-Reval-Accept-Batch";
+
+	/** Local sinks store any batch, so they leave the limit to the plugin config */
+	int SINK_BATCH_LIMIT = 50;
+
+	/**
+	 * Delivers a request. Exactly one of the callback's methods is invoked, possibly on
+	 * another thread, and the callback closes the response.
+	 */
+	void deliver(Request request, Callback callback);
+
+	/**
+	 * @return false if bodies should be sent uncompressed, e.g. to a local sink that
+	 *         stores them as text
+	 */
+	default boolean acceptsCompressedBodies() {
+		return true;
+	}
+
+	/**
+	 * Builds the response a local sink answers with once it has stored a request. Like
+	 * the live server it advertises batch support, so batching runs in offline soaks.
+	 */
+	static Response accepted(Request request) {
+		return new Response.Builder()
+			.request(request)
+			.protocol(Protocol.HTTP_1_1)
+			.code(200)
+			.message("OK")
+			.header(ACCEPT_BATCH_HEADER, String.valueOf(SINK_BATCH_LIMIT))
+			.body(ResponseBody.create(MediaType.parse("text/plain"), ""))
+			.build();
+	}
+}
@@ -0,0 +1,173 @@
+package com.revalclan.tools;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Stand-in for the Reval webhook endpoint, for end-to-end throughput runs without the
+ * live API. Accepts identity, gzip and preset-dictionary bodies, and prints requests,
+ * events and bytes per second.
+ * <p>
+ * Usage: {@code LocalIngestServer [--port=8787] [--fail-rate=0.0] [--no-dict] [--batch=50]}
+ * <p>
+ * Point the client at it with
+ * {@code -Dreval.webhook.url=http://localhost:8787/reval-webhook}.
+ * Unless {@code --no-dict} is given the bundled {@code payload-dict-v1.txt} is
+ * advertised, so the dictionary path is exercised too. {@code --fail-rate} answers that
+ * fraction of requests with 503 to exercise retries and the circuit breaker.
+ * {@code --batch} is the batch size advertised in {@code X-Reval-Accept-Batch}; 1 keeps
+ * the client sending one event per request.
+ */
+public class LocalIngestServer {
+	private static final String BUNDLED_DICTIONARY = "/com/revalclan/webhook/payload-dict-v1.txt";
+	private static final String DICTIONARY_VERSION = "v1";
+
+	private static final AtomicLong requests = new AtomicLong();
+	private static final AtomicLong events = new AtomicLong();
+	private static final AtomicLong wireBytes = new AtomicLong();
+	private static final AtomicLong rawBytes = new AtomicLong();
+	private static final AtomicLong failed = new AtomicLong();
+
+	private static byte[] dictionary;
+	private static double failRate = 0;
+	private static int batchLimit = 50;
+
+	public static void main(String[] args) throws IOException {
+		int port = 8787;
+		boolean advertise = true;
+		for (String arg : args) {
+			if (arg.startsWith("--port=")) {
+				port = Integer.parseInt(arg.substring("--port=".length()));
+			} else if (arg.startsWith("--fail-rate=")) {
+				failRate = Double.parseDouble(arg.substring("--fail-rate=".length()));
+			} else if (arg.equals("--no-dict")) {
+				advertise = false;
+			} else if (arg.startsWith("--batch=")) {
+				batchLimit = Math.max(1, Integer.parseInt(arg.substring("--batch=".length())));
+			} else {
+				System.err.println("Usage: LocalIngestServer [--port=8787] [--fail-rate=0.0] [--no-dict] [--batch=50]");
+				System.exit(1);
+			}
+		}
+		dictionary = readResource(BUNDLED_DICTIONARY);
+
+		boolean advertiseDictionary = advertise;
+		HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+		server.setExecutor(Executors.newFixedThreadPool(4));
+		server.createContext("/", exchange -> handle(exchange, advertiseDictionary));
+		server.start();
+		System.out.printf("Listening on http://localhost:%d/reval-webhook%n", port);
+
+		Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(new Runnable() {
+			private long lastRequests, lastEvents, lastWire, lastRaw, lastFailed;
+
+			@Override
+			public void run() {
+				long r = requests.get(), e = events.get(), w = wireBytes.get(), b = rawBytes.get(), f = failed.get();
+				if (r != lastRequests) {
+					System.out.printf("%6d req/s %7d events/s %9d wire B/s %9d raw B/s %5d failed/s (total %d events)%n",
+						r - lastRequests, e - lastEvents, w - lastWire, b - lastRaw, f - lastFailed, e);
+				}
+				lastRequests = r;
+				lastEvents = e;
+				lastWire = w;
+				lastRaw = b;
+				lastFailed = f;
+			}
+		}, 1, 1, TimeUnit.SECONDS);
+	}
+
+	private static void handle(HttpExchange exchange, boolean advertiseDictionary) throws IOException {
+		try {
+			byte[] wire = exchange.getRequestBody().readAllBytes();
+			requests.incrementAndGet();
+			wireBytes.addAndGet(wire.length);
+
+			if (advertiseDictionary) {
+				exchange.getResponseHeaders().add("X-Reval-Accept-Dictionary", DICTIONARY_VERSION);
+			}
+			exchange.getResponseHeaders().add("X-Reval-Accept-Batch", String.valueOf(batchLimit));
+
+			if (failRate > 0 && ThreadLocalRandom.current().nextDouble() < failRate) {
+				failed.incrementAndGet();
+				respond(exchange, 503);
+				return;
+			}
+
+			String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+			byte[] raw;
+			if ("gzip".equals(encoding)) {
+				try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(wire))) {
+					raw = in.readAllBytes();
+				}
+			} else if ("x-reval-deflate-dict".equals(encoding)) {
+				if (!DICTIONARY_VERSION.equals(exchange.getRequestHeaders().getFirst("X-Reval-Dictionary"))) {
+					respond(exchange, 415);
+					return;
+				}
+				raw = inflate(wire);
+			} else if (encoding == null || "identity".equals(encoding)) {
+				raw = wire;
+			} else {
+				respond(exchange, 415);
+				return;
+			}
+
+			rawBytes.addAndGet(raw.length);
+			String batchSize = exchange.getRequestHeaders().getFirst("X-Reval-Batch-Size");
+			events.addAndGet(batchSize != null ? Integer.parseInt(batchSize) : 1);
+			respond(exchange, 200);
+		} catch (IOException | DataFormatException | RuntimeException e) {
+			System.err.println("Bad request: " + e);
+			respond(exchange, 400);
+		}
+	}
+
+	private static byte[] inflate(byte[] wire) throws DataFormatException {
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(wire);
+			ByteArrayOutputStream out = new ByteArrayOutputStream(wire.length * 4);
+			byte[] chunk = new byte[8192];
+			while (!inflater.finished()) {
+				int n = inflater.inflate(chunk);
+				if (n == 0) {
+					if (inflater.needsDictionary()) {
+						inflater.setDictionary(dictionary);
+					} else if (inflater.needsInput()) {
+						throw new DataFormatException("Truncated body");
+					}
+				}
+				out.write(chunk, 0, n);
+			}
+			return out.toByteArray();
+		} finally {
+			inflater.end();
+		}
+	}
+
+	private static void respond(HttpExchange exchange, int code) throws IOException {
+		exchange.sendResponseHeaders(code, -1);
+		exchange.close();
+	}
+
+	private static byte[] readResource(String name) throws IOException {
+		try (InputStream in = LocalIngestServer.class.getResourceAsStream(name)) {
+			if (in == null) throw new IOException("Missing resource " + name);
+			return in.readAllBytes();
+		}
+	}
+}
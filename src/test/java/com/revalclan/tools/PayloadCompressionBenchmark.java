@@ -0,0 +1,133 @@
+package com.revalclan.tools;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares plain gzip with preset-dictionary deflate on recorded webhook payloads,
+ * per event type.
+ * <p>
+ * Usage: {@code PayloadCompressionBenchmark <samples...> [--dict=file]}
+ * <p>
+ * Without {@code --dict} the bundled {@code payload-dict-v1.txt} is used.
+ */
+public class PayloadCompressionBenchmark {
+	private static final String BUNDLED_DICTIONARY = "/com/revalclan/webhook/payload-dict-v1.txt";
+	private static final int ROUNDS = 20;
+
+	private static class Stats {
+		int count;
+		long raw;
+		long gzip;
+		long dictionary;
+		long gzipNanos;
+		long dictionaryNanos;
+	}
+
+	public static void main(String[] args) throws IOException {
+		byte[] dictionary = null;
+		List<String> inputs = new ArrayList<>();
+		for (String arg : args) {
+			if (arg.startsWith("--dict=")) {
+				dictionary = Files.readAllBytes(Paths.get(arg.substring("--dict=".length())));
+			} else {
+				inputs.add(arg);
+			}
+		}
+		if (inputs.isEmpty()) {
+			System.err.println("Usage: PayloadCompressionBenchmark <samples...> [--dict=file]");
+			System.exit(1);
+		}
+		if (dictionary == null) {
+			dictionary = readResource(BUNDLED_DICTIONARY);
+		}
+
+		List<String> samples = PayloadSamples.read(inputs.toArray(new String[0]));
+		Map<String, Stats> byType = new TreeMap<>();
+		Stats total = new Stats();
+
+		for (String sample : samples) {
+			byte[] raw = sample.getBytes(StandardCharsets.UTF_8);
+
+			// Warm-up so the first event type doesn't pay for JIT compilation
+			gzip(raw);
+			deflate(raw, dictionary);
+
+			long start = System.nanoTime();
+			int gzipSize = 0;
+			for (int i = 0; i < ROUNDS; i++) gzipSize = gzip(raw);
+			long gzipNanos = (System.nanoTime() - start) / ROUNDS;
+
+			start = System.nanoTime();
+			int dictionarySize = 0;
+			for (int i = 0; i < ROUNDS; i++) dictionarySize = deflate(raw, dictionary);
+			long dictionaryNanos = (System.nanoTime() - start) / ROUNDS;
+
+			for (Stats stats : new Stats[]{byType.computeIfAbsent(PayloadSamples.eventType(sample), k -> new Stats()), total}) {
+				stats.count++;
+				stats.raw += raw.length;
+				stats.gzip += gzipSize;
+				stats.dictionary += dictionarySize;
+				stats.gzipNanos += gzipNanos;
+				stats.dictionaryNanos += dictionaryNanos;
+			}
+		}
+
+		System.out.printf("Dictionary: %d bytes, %d payloads%n%n", dictionary.length, samples.size());
+		System.out.printf("%-20s %6s %10s %10s %10s %8s %10s %10s%n",
+			"eventType", "count", "avg raw", "avg gzip", "avg dict", "saving", "gzip us", "dict us");
+		for (Map.Entry<String, Stats> entry : byType.entrySet()) {
+			print(entry.getKey(), entry.getValue());
+		}
+		print("TOTAL", total);
+	}
+
+	private static void print(String name, Stats stats) {
+		double saving = stats.gzip == 0 ? 0 : 100.0 * (stats.gzip - stats.dictionary) / stats.gzip;
+		System.out.printf("%-20s %6d %10d %10d %10d %7.1f%% %10.1f %10.1f%n",
+			name, stats.count,
+			stats.raw / stats.count, stats.gzip / stats.count, stats.dictionary / stats.count,
+			saving,
+			stats.gzipNanos / 1000.0 / stats.count, stats.dictionaryNanos / 1000.0 / stats.count);
+	}
+
+	private static int gzip(byte[] raw) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(raw);
+		}
+		return out.size();
+	}
+
+	private static int deflate(byte[] raw, byte[] dictionary) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+		try {
+			deflater.setDictionary(dictionary);
+			try (DeflaterOutputStream stream = new DeflaterOutputStream(out, deflater)) {
+				stream.write(raw);
+			}
+		} finally {
+			deflater.end();
+		}
+		return out.size();
+	}
+
+	private static byte[] readResource(String name) throws IOException {
+		try (InputStream in = PayloadCompressionBenchmark.class.getResourceAsStream(name)) {
+			if (in == null) throw new IOException("Missing resource " + name);
+			return in.readAllBytes();
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package com.revalclan.tools;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Builds a webhook payload dictionary from recorded payloads.
+ * <p>
+ * Usage: {@code PayloadDictionaryTrainer <output> <samples...> [--size=bytes]}
+ * <p>
+ * Candidate fragments are JSON keys with their punctuation and short string values
+ * with their key, except values that identify a player. Each is scored by the number
+ * of payloads it appears in times the bytes it would save, and the best are packed up
+ * to the size budget, ordered so the highest-scoring ones end up closest to the end of
+ * the dictionary.
+ * <p>
+ * Write the result to {@code src/main/resources/com/revalclan/webhook/payload-dict-vN.txt}
+ * under a new version and bump {@code PayloadDictionary.CURRENT_VERSION} once the server
+ * has the same file; never overwrite a released version.
+ */
+public class PayloadDictionaryTrainer {
+	private static final int DEFAULT_SIZE = 8 * 1024;
+
+	/** Fragments must appear in at least this share of payloads */
+	private static final double MIN_DOCUMENT_SHARE = 0.01;
+
+	/** Longer string values are unlikely to repeat, e.g. messages and screenshots */
+	private static final int MAX_VALUE_LENGTH = 32;
+
+	/** Values that identify a player must never be baked into a shipped dictionary */
+	private static final Set<String> PRIVATE_KEYS = Set.of("username", "player", "killedBy", "message", "partyMembers");
+
+	private static final Pattern KEY = Pattern.compile("[,{]?\"[A-Za-z_]+\":[\\[{\"]?");
+	private static final Pattern KEY_VALUE = Pattern.compile("\"([A-Za-z_]+)\":\"[^\"\\\\]{1," + MAX_VALUE_LENGTH + "}\"");
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: PayloadDictionaryTrainer <output> <samples...> [--size=bytes]");
+			System.exit(1);
+		}
+
+		int size = DEFAULT_SIZE;
+		List<String> inputs = new ArrayList<>();
+		for (int i = 1; i < args.length; i++) {
+			if (args[i].startsWith("--size=")) {
+				size = Integer.parseInt(args[i].substring("--size=".length()));
+			} else {
+				inputs.add(args[i]);
+			}
+		}
+
+		List<String> samples = PayloadSamples.read(inputs.toArray(new String[0]));
+		if (samples.isEmpty()) {
+			System.err.println("No payloads found");
+			System.exit(1);
+		}
+
+		String dictionary = train(samples, size);
+		Files.write(Paths.get(args[0]), dictionary.getBytes(StandardCharsets.UTF_8));
+		System.out.printf("Wrote %d byte dictionary from %d payloads to %s%n", dictionary.length(), samples.size(), args[0]);
+	}
+
+	static String train(List<String> samples, int size) {
+		// Fragment → number of payloads containing it
+		Map<String, Integer> documentCounts = new HashMap<>();
+		for (String sample : samples) {
+			Set<String> seen = new HashSet<>();
+			collectKeys(sample, seen);
+			collectValues(sample, seen);
+			for (String fragment : seen) {
+				documentCounts.merge(fragment, 1, Integer::sum);
+			}
+		}
+
+		int minDocuments = Math.max(2, (int) (samples.size() * MIN_DOCUMENT_SHARE));
+		List<Map.Entry<String, Integer>> candidates = new ArrayList<>();
+		for (Map.Entry<String, Integer> entry : documentCounts.entrySet()) {
+			if (entry.getValue() >= minDocuments) candidates.add(entry);
+		}
+		candidates.sort(Comparator.comparingLong(PayloadDictionaryTrainer::score).reversed());
+
+		List<String> chosen = new ArrayList<>();
+		int used = 0;
+		for (Map.Entry<String, Integer> candidate : candidates) {
+			String fragment = candidate.getKey();
+			if (used + fragment.length() > size) continue;
+			if (chosen.stream().anyMatch(c -> c.contains(fragment))) continue;
+
+			chosen.add(fragment);
+			used += fragment.length();
+		}
+
+		// Best fragments last: deflate reaches the end of the dictionary with the shortest distances
+		StringBuilder out = new StringBuilder(used);
+		for (int i = chosen.size() - 1; i >= 0; i--) {
+			out.append(chosen.get(i));
+		}
+		return out.toString();
+	}
+
+	private static long score(Map.Entry<String, Integer> entry) {
+		// A back-reference costs roughly three bytes
+		return (long) entry.getValue() * Math.max(0, entry.getKey().length() - 3);
+	}
+
+	private static void collectKeys(String sample, Set<String> into) {
+		Matcher matcher = KEY.matcher(sample);
+		while (matcher.find()) {
+			into.add(matcher.group());
+		}
+	}
+
+	private static void collectValues(String sample, Set<String> into) {
+		Matcher matcher = KEY_VALUE.matcher(sample);
+		while (matcher.find()) {
+			if (!PRIVATE_KEYS.contains(matcher.group(1))) {
+				into.add(matcher.group());
+			}
+		}
+	}
+}
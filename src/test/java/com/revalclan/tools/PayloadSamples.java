@@ -0,0 +1,62 @@
+package com.revalclan.tools;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reads recorded webhook payloads for the offline tools: either newline-delimited JSON
+ * or webhook outbox segments ({@code id \t timestamp \t json}), given as files or
+ * directories.
+ */
+final class PayloadSamples {
+	private static final Pattern EVENT_TYPE = Pattern.compile("\"eventType\":\"([A-Z_]+)\"");
+
+	private PayloadSamples() {}
+
+	static List<String> read(String... paths) throws IOException {
+		List<String> samples = new ArrayList<>();
+		for (String path : paths) {
+			for (Path file : files(Paths.get(path))) {
+				for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+					String json = toJson(line);
+					if (json != null) samples.add(json);
+				}
+			}
+		}
+		return samples;
+	}
+
+	static String eventType(String json) {
+		Matcher matcher = EVENT_TYPE.matcher(json);
+		return matcher.find() ? matcher.group(1) : "UNKNOWN";
+	}
+
+	private static List<Path> files(Path path) throws IOException {
+		if (!Files.isDirectory(path)) return List.of(path);
+
+		try (Stream<Path> stream = Files.walk(path)) {
+			return stream
+				.filter(Files::isRegularFile)
+				.filter(p -> p.toString().endsWith(".seg") || p.toString().endsWith(".json") || p.toString().endsWith(".ndjson"))
+				.sorted()
+				.collect(Collectors.toList());
+		}
+	}
+
+	private static String toJson(String line) {
+		if (line.startsWith("{")) return line;
+
+		String[] parts = line.split("\t", 3);
+		if (parts.length == 3 && parts[2].startsWith("{")) return parts[2];
+		return null;
+	}
+}
@@ -0,0 +1,73 @@
+package com.revalclan.tools;
+
+import com.revalclan.util.TextNormalizer;
+import com.revalclan.util.TextNormalizerTest.ReplacedChain;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.UnaryOperator;
+
+/**
+ * Times {@link TextNormalizer} against the regex and replace chains it replaced, per call
+ * and in bytes allocated, on realistic text. That both give identical results is checked
+ * by {@code TextNormalizerTest}.
+ * <p>
+ * Usage: {@code TextNormalizerBenchmark [--iterations=2000000]}
+ */
+public class TextNormalizerBenchmark {
+	private static final String[][] SAMPLES = {
+		{"Your <col=ef1020>Zulrah</col> kill count is: <col=ef1020>1,024</col>.",
+			"<col=ff0000>New item added to your collection log: Tanzanite fang</col>",
+			"You have a funny feeling like you're being followed."},
+		{"<col=ef1020>Congratulations!</col><br>You've completed a <col=ff0000>hard</col> task.",
+			"Welcome to Old School RuneScape."},
+		{"<col=ff9040>Sea Shanty 2</col>", "Harmony"},
+		{"<col=ffffff>Zezima</col>", "Lynx\u00A0Titan", " <img=2>Woox "},
+		{"\u2605Zezima", "<img=3>Lynx Titan", "B0aty"},
+	};
+
+	private static volatile int sink;
+
+	public static void main(String[] args) {
+		int iterations = 2_000_000;
+		for (String arg : args) {
+			if (arg.startsWith("--iterations=")) {
+				iterations = Integer.parseInt(arg.substring("--iterations=".length()));
+			} else {
+				System.err.println("Usage: TextNormalizerBenchmark [--iterations=2000000]");
+				System.exit(1);
+			}
+		}
+
+		System.out.printf("%-14s %12s %12s %14s %14s%n", "preset", "chain ns", "single ns", "chain B/op", "single B/op");
+		for (ReplacedChain preset : ReplacedChain.values()) {
+			String[] samples = SAMPLES[preset.ordinal()];
+			// Warm up both
+			measure(samples, iterations / 4, preset.chain);
+			measure(samples, iterations / 4, s -> TextNormalizer.normalize(s, preset.flags));
+
+			double[] chain = measure(samples, iterations, preset.chain);
+			double[] single = measure(samples, iterations, s -> TextNormalizer.normalize(s, preset.flags));
+			System.out.printf("%-14s %12.1f %12.1f %14.1f %14.1f%n", preset, chain[0], single[0], chain[1], single[1]);
+		}
+	}
+
+	/**
+	 * @return nanoseconds and bytes allocated per call
+	 */
+	private static double[] measure(String[] samples, int iterations, UnaryOperator<String> normalize) {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+
+		long allocated = threads.getThreadAllocatedBytes(thread);
+		long start = System.nanoTime();
+		int total = 0;
+		for (int i = 0; i < iterations; i++) {
+			total += normalize.apply(samples[i % samples.length]).length();
+		}
+		long elapsed = System.nanoTime() - start;
+		allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+		sink = total;
+
+		return new double[]{(double) elapsed / iterations, (double) allocated / iterations};
+	}
+}
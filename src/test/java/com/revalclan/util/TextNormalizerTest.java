@@ -0,0 +1,133 @@
+package com.revalclan.util;
+
+import net.runelite.client.util.Text;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks that each {@link TextNormalizer} preset gives exactly the result of the regex
+ * and replace chain it replaced, on random text built from the characters the chains
+ * care about
+ */
+public class TextNormalizerTest {
+	private static final int FUZZ_TEXTS = 100_000;
+
+	private static final Pattern COL_OPEN = Pattern.compile("<col=[0-9a-fA-F]+>");
+	private static final Pattern COL_CLOSE = Pattern.compile("</col>");
+	private static final Pattern HTML_BR = Pattern.compile("<br>");
+	private static final Pattern HTML_TAGS = Pattern.compile("<[^>]+>");
+	private static final Pattern LEADING_NON_WORD = Pattern.compile("^[^\\w\\s]+");
+	private static final Pattern CONTROL_CHARS = Pattern.compile("[\\u0000-\\u001F\\u007F-\\u009F]");
+	private static final Pattern GENERAL_PUNCTUATION = Pattern.compile("[\\u2000-\\u206F]");
+	private static final Pattern CURRENCY_SYMBOLS = Pattern.compile("[\\u20A0-\\u20CF]");
+	private static final Pattern ARROWS = Pattern.compile("[\\u2190-\\u21FF]");
+	private static final Pattern MISC_SYMBOLS = Pattern.compile("[\\u2600-\\u26FF]");
+	private static final Pattern DINGBATS = Pattern.compile("[\\u2700-\\u27BF]");
+
+	private static final String[] FRAGMENTS = {
+		"<", ">", "/", "<col=", "ff0000", "</col>", "<col=ef1020>", "<br>", "<img=2>", "col", "=",
+		"\u00A0", " ", "\t", "\u0001", "\u2605", "\u2022", "\u20AC", "\u2192", "\u2714", "!", "_",
+		"Zezima", "a", "b", "r", "0", "Loot: ", "Dragon claws", "(", ")"
+	};
+
+	/**
+	 * Each preset with the chain it replaced; also timed by the TextNormalizerBenchmark tool
+	 */
+	public enum ReplacedChain {
+		COLOR_TAGS(TextNormalizer.STRIP_COLOR_TAGS,
+			s -> COL_CLOSE.matcher(COL_OPEN.matcher(s).replaceAll("")).replaceAll("")),
+		CHAT_MESSAGE(TextNormalizer.CHAT_MESSAGE,
+			s -> HTML_TAGS.matcher(HTML_BR.matcher(s).replaceAll(" ")).replaceAll("").trim()),
+		MUSIC_TRACK(TextNormalizer.STRIP_HTML_TAGS | TextNormalizer.TRIM,
+			s -> HTML_TAGS.matcher(s).replaceAll("").trim()),
+		WIDGET_TEXT(TextNormalizer.WIDGET_TEXT,
+			s -> Text.removeTags(s).replace('\u00A0', ' ').trim()),
+		CLAN_USERNAME(TextNormalizer.CLAN_USERNAME, s -> {
+			String cleaned = LEADING_NON_WORD.matcher(s).replaceAll("");
+			cleaned = CONTROL_CHARS.matcher(cleaned).replaceAll("");
+			cleaned = GENERAL_PUNCTUATION.matcher(cleaned).replaceAll("");
+			cleaned = CURRENCY_SYMBOLS.matcher(cleaned).replaceAll("");
+			cleaned = ARROWS.matcher(cleaned).replaceAll("");
+			cleaned = MISC_SYMBOLS.matcher(cleaned).replaceAll("");
+			cleaned = DINGBATS.matcher(cleaned).replaceAll("");
+			return cleaned.trim();
+		});
+
+		public final int flags;
+		public final UnaryOperator<String> chain;
+
+		ReplacedChain(int flags, UnaryOperator<String> chain) {
+			this.flags = flags;
+			this.chain = chain;
+		}
+	}
+
+	@Test
+	public void matchesReplacedChainsOnRandomText() {
+		Random random = new Random(1);
+		for (ReplacedChain preset : ReplacedChain.values()) {
+			for (int i = 0; i < FUZZ_TEXTS; i++) {
+				assertMatchesChain(preset, randomText(random));
+			}
+		}
+	}
+
+	@Test
+	public void matchesReplacedChainsOnColorTagEdgeCases() {
+		String[] texts = {
+			"<col=ff0000>Tanzanite fang</col>",
+			// A </col> only formed once the <col=...> inside it is removed
+			"</co<col=ff0000>l>",
+			"<</col>/col>",
+			"<col=>a</col",
+			"<col=FFaa00><col=ff0000>>",
+			"</col><br></col>",
+			"<<br>>",
+			"a<br",
+		};
+		for (ReplacedChain preset : ReplacedChain.values()) {
+			for (String text : texts) {
+				assertMatchesChain(preset, text);
+			}
+		}
+	}
+
+	@Test
+	public void returnsTheTextItselfWhenNothingChanges() {
+		String text = "Dragon claws";
+		for (ReplacedChain preset : ReplacedChain.values()) {
+			assertSame(text, TextNormalizer.normalize(text, preset.flags));
+		}
+	}
+
+	private static void assertMatchesChain(ReplacedChain preset, String text) {
+		assertEquals(preset + " on " + escape(text), preset.chain.apply(text), TextNormalizer.normalize(text, preset.flags));
+	}
+
+	private static String randomText(Random random) {
+		StringBuilder text = new StringBuilder();
+		int parts = random.nextInt(12);
+		for (int i = 0; i < parts; i++) {
+			text.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+		}
+		return text.toString();
+	}
+
+	private static String escape(String text) {
+		StringBuilder escaped = new StringBuilder("\"");
+		for (char c : text.toCharArray()) {
+			if (c < ' ' || c > '~') {
+				escaped.append(String.format("\\u%04X", (int) c));
+			} else {
+				escaped.append(c);
+			}
+		}
+		return escaped.append('"').toString();
+	}
+}
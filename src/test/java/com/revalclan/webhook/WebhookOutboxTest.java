@@ -0,0 +1,181 @@
+package com.revalclan.webhook;
+
+import com.google.gson.Gson;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class WebhookOutboxTest {
+	/** Replay drains one entry per 500ms; long enough to see one more if there is one */
+	private static final long REPLAY_WAIT_MS = 2000;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final Gson gson = new Gson();
+	private final BlockingQueue<Replayed> replayed = new LinkedBlockingQueue<>();
+
+	private File directory;
+	private WebhookOutbox outbox;
+
+	private static class Replayed {
+		final String id;
+		final String json;
+		final byte[] attachment;
+
+		Replayed(String id, String json, byte[] attachment) {
+			this.id = id;
+			this.json = json;
+			this.attachment = attachment;
+		}
+	}
+
+	@Before
+	public void setUp() throws IOException {
+		directory = folder.newFolder("outbox");
+	}
+
+	@After
+	public void tearDown() {
+		if (outbox != null) {
+			outbox.stop();
+		}
+	}
+
+	@Test
+	public void recoverySkipsTornFinalLine() throws Exception {
+		long now = System.currentTimeMillis();
+		writeFile("00000001.seg", record("a", now, "{\"n\":1}") + record("b", now, "{\"n\":2}") + "c\t" + now);
+
+		start(new WebhookOutbox(gson, directory));
+
+		assertEquals(Arrays.asList("a", "b"), awaitReplayedIds(2));
+		assertNull(replayed.poll(REPLAY_WAIT_MS, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void recoverySkipsAckedAndExpiredEntries() throws Exception {
+		long now = System.currentTimeMillis();
+		long expired = now - TimeUnit.DAYS.toMillis(8);
+		writeFile("00000001.seg", record("acked", now, "{}") + record("expired", expired, "{}") + record("fresh", now, "{}"));
+		writeFile("00000001.ack", "acked\n");
+		writeFile("00000002.seg", record("done", now, "{}"));
+		writeFile("00000002.ack", "done\n");
+
+		start(new WebhookOutbox(gson, directory));
+
+		Replayed fresh = replayed.poll(REPLAY_WAIT_MS, TimeUnit.MILLISECONDS);
+		assertEquals("fresh", fresh.id);
+		assertEquals("{}", fresh.json);
+		assertNull(replayed.poll(REPLAY_WAIT_MS, TimeUnit.MILLISECONDS));
+
+		// Every entry of the second segment was acknowledged, so recovery deleted it
+		assertFalse(new File(directory, "00000002.seg").exists());
+		assertFalse(new File(directory, "00000002.ack").exists());
+	}
+
+	@Test
+	public void rollsOverAndDeletesFullyAckedSealedSegments() throws Exception {
+		outbox = new WebhookOutbox(gson, directory, 64, Long.MAX_VALUE);
+		start(outbox);
+
+		// Every 16th write syncs the segment, so the 17th at the latest sees it past the
+		// rollover size; the periodic sync may roll it over earlier
+		for (int i = 0; i < 17; i++) {
+			outbox.append("event" + i, Map.of("eventType", "TEST", "index", i));
+		}
+		for (int i = 0; i < 16; i++) {
+			outbox.ack("event" + i);
+		}
+		outbox.stop();
+		outbox = null;
+
+		// Sealed segments went away with their last ack; only the active one is left
+		assertFalse(new File(directory, "00000001.seg").exists());
+		assertFalse(new File(directory, "00000001.ack").exists());
+		File[] segments = directory.listFiles((dir, name) -> name.endsWith(".seg"));
+		assertEquals(1, segments.length);
+		String[] records = read(segments[0].getName()).split("\n");
+		assertTrue(records[records.length - 1].startsWith("event16\t"));
+	}
+
+	@Test
+	public void recoveryDeletesOrphanedAttachments() throws Exception {
+		byte[] screenshot = {(byte) 0xff, (byte) 0xd8, 1, 2, 3};
+		writeFile("00000001.seg", record("kept", System.currentTimeMillis(), "{}"));
+		Files.write(new File(directory, "kept.jpg").toPath(), screenshot);
+		Files.write(new File(directory, "orphan.jpg").toPath(), screenshot);
+
+		start(new WebhookOutbox(gson, directory));
+
+		Replayed kept = replayed.poll(REPLAY_WAIT_MS, TimeUnit.MILLISECONDS);
+		assertEquals("kept", kept.id);
+		assertArrayEquals(screenshot, kept.attachment);
+		assertTrue(new File(directory, "kept.jpg").exists());
+		assertFalse(new File(directory, "orphan.jpg").exists());
+	}
+
+	@Test
+	public void recoveryDiscardsOldestSegmentsOverTheSizeCap() throws Exception {
+		long now = System.currentTimeMillis();
+		for (int seq = 1; seq <= 3; seq++) {
+			writeFile(String.format("%08d.seg", seq), record("event" + seq, now, "{\"pad\":\"" + "x".repeat(60) + "\"}"));
+		}
+		writeFile("00000001.ack", "");
+		long segmentBytes = new File(directory, "00000001.seg").length();
+
+		start(new WebhookOutbox(gson, directory, Long.MAX_VALUE, 2 * segmentBytes));
+
+		assertEquals(Arrays.asList("event2", "event3"), awaitReplayedIds(2));
+		assertNull(replayed.poll(REPLAY_WAIT_MS, TimeUnit.MILLISECONDS));
+		assertFalse(new File(directory, "00000001.seg").exists());
+		assertFalse(new File(directory, "00000001.ack").exists());
+	}
+
+	private void start(WebhookOutbox outbox) {
+		this.outbox = outbox;
+		outbox.start((id, json, attachment) -> replayed.add(new Replayed(id, json, attachment)));
+	}
+
+	private List<String> awaitReplayedIds(int count) throws InterruptedException {
+		List<String> ids = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Replayed next = replayed.poll(REPLAY_WAIT_MS, TimeUnit.MILLISECONDS);
+			if (next == null) break;
+			ids.add(next.id);
+		}
+		return ids;
+	}
+
+	private static String record(String id, long timestamp, String json) {
+		return id + "\t" + timestamp + "\t" + json + "\n";
+	}
+
+	private void writeFile(String name, String content) throws IOException {
+		Files.write(new File(directory, name).toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private String read(String name) throws IOException {
+		return new String(Files.readAllBytes(new File(directory, name).toPath()), StandardCharsets.UTF_8);
+	}
+}